@@ -0,0 +1,150 @@
+package id.ac.stis.pbo.demo1;
+
+import java.util.*;
+
+/**
+ * Attendance Cube
+ * Attendance aggregated by division, month and status, kept next to the
+ * employee/month attendance index of InMemoryStorage and updated with every record, so the
+ * reports and analytics cards are answered without touching attendance rows.
+ *
+ * Every (division, month) cell holds the status counters (Hadir/Izin/Sakit/Lembur). Queries roll cells up
+ * over divisions and month ranges, or drill down from all divisions to one division; the
+ * employee level is the attendance index itself. Answers cost O(cells), never O(records).
+ *
+ * Counters follow the employee's current division: when an employee moves to another
+ * division, all of their months move with them (the reports list current members).
+ *
+ * Not thread-safe; InMemoryStorage calls it under its lock.
+ */
+class AttendanceCube {
+    // division -> month key (see DataStore.bulanKey) -> counters; TreeMap for month range queries
+    private final Map<String, TreeMap<Integer, RekapKehadiran>> perDivisi = new HashMap<>();
+
+    // employee ordinal -> division the employee's counters are filed under
+    private final List<String> divisiPegawai = new ArrayList<>();
+
+    // division -> employees filed under it
+    private final Map<String, Integer> jumlahAnggota = new HashMap<>();
+
+    private RekapKehadiran sel(String divisi, int bulanKey) {
+        return perDivisi.computeIfAbsent(divisi, k -> new TreeMap<>())
+                .computeIfAbsent(bulanKey, k -> RekapKehadiran.hitungan(0, 0, 0, 0));
+    }
+
+    private void setDivisi(int ordinal, String divisi) {
+        while (divisiPegawai.size() <= ordinal) {
+            divisiPegawai.add(null);
+        }
+        String lama = divisiPegawai.set(ordinal, divisi);
+        if (lama != null) {
+            jumlahAnggota.merge(lama, -1, Integer::sum);
+        }
+        jumlahAnggota.merge(divisi, 1, Integer::sum);
+    }
+
+    private String divisiOf(Pegawai pegawai) {
+        if (pegawai.ordinal >= divisiPegawai.size() || divisiPegawai.get(pegawai.ordinal) == null) {
+            setDivisi(pegawai.ordinal, pegawai.divisi);
+        }
+        return divisiPegawai.get(pegawai.ordinal);
+    }
+
+    /**
+     * Counts one attendance record
+     */
+    void tambah(Pegawai pegawai, int bulanKey, byte status) {
+        sel(divisiOf(pegawai), bulanKey).hitung(status);
+    }
+
+    /**
+     * Registers an added or edited employee and moves their months (bulanan: month key -> recap)
+     * to their current division, if it changed
+     */
+    void pegawaiBerubah(Pegawai pegawai, Map<Integer, RekapKehadiran> bulanan) {
+        String lama = pegawai.ordinal < divisiPegawai.size() ? divisiPegawai.get(pegawai.ordinal) : null;
+        if (Objects.equals(lama, pegawai.divisi)) {
+            return;
+        }
+        for (Map.Entry<Integer, RekapKehadiran> e : bulanan.entrySet()) {
+            if (lama != null) {
+                sel(lama, e.getKey()).tambahHitungan(e.getValue(), -1);
+            }
+            sel(pegawai.divisi, e.getKey()).tambahHitungan(e.getValue(), 1);
+        }
+        setDivisi(pegawai.ordinal, pegawai.divisi);
+    }
+
+    /**
+     * Rebuilds all cells from the employee/month attendance index
+     */
+    void rebuild(List<Pegawai> pegawai, List<Map<Integer, RekapKehadiran>> presensiIndex) {
+        perDivisi.clear();
+        divisiPegawai.clear();
+        jumlahAnggota.clear();
+        for (Pegawai p : pegawai) {
+            setDivisi(p.ordinal, p.divisi);
+            for (Map.Entry<Integer, RekapKehadiran> e : presensiIndex.get(p.ordinal).entrySet()) {
+                sel(p.divisi, e.getKey()).tambahHitungan(e.getValue(), 1);
+            }
+        }
+    }
+
+    private boolean cocok(String divisi, Map.Entry<String, ?> e) {
+        return divisi == null || divisi.equals(e.getKey());
+    }
+
+    /**
+     * Gets the counters of a division in a month; null divisi rolls up all divisions
+     */
+    RekapKehadiran get(String divisi, int bulanKey) {
+        RekapKehadiran result = RekapKehadiran.hitungan(0, 0, 0, 0);
+        for (Map.Entry<String, TreeMap<Integer, RekapKehadiran>> e : perDivisi.entrySet()) {
+            if (cocok(divisi, e)) {
+                RekapKehadiran sel = e.getValue().get(bulanKey);
+                if (sel != null) {
+                    result.tambahHitungan(sel, 1);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drills a month down to divisions: division -> counters, for every division with employees or records
+     */
+    Map<String, RekapKehadiran> perDivisi(int bulanKey) {
+        Map<String, RekapKehadiran> result = new TreeMap<>();
+        for (Map.Entry<String, Integer> e : jumlahAnggota.entrySet()) {
+            if (e.getValue() > 0) {
+                result.put(e.getKey(), RekapKehadiran.hitungan(0, 0, 0, 0));
+            }
+        }
+        for (Map.Entry<String, TreeMap<Integer, RekapKehadiran>> e : perDivisi.entrySet()) {
+            RekapKehadiran sel = e.getValue().get(bulanKey);
+            if (sel != null) {
+                result.computeIfAbsent(e.getKey(), k -> RekapKehadiran.hitungan(0, 0, 0, 0)).tambahHitungan(sel, 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rolls a division (null: all divisions) up per month over [dariBulanKey, sampaiBulanKey];
+     * months without records are included with zero counters
+     */
+    SortedMap<Integer, RekapKehadiran> perBulan(String divisi, int dariBulanKey, int sampaiBulanKey) {
+        SortedMap<Integer, RekapKehadiran> result = new TreeMap<>();
+        for (int key = dariBulanKey; key <= sampaiBulanKey; key++) {
+            result.put(key, RekapKehadiran.hitungan(0, 0, 0, 0));
+        }
+        for (Map.Entry<String, TreeMap<Integer, RekapKehadiran>> e : perDivisi.entrySet()) {
+            if (cocok(divisi, e)) {
+                for (Map.Entry<Integer, RekapKehadiran> bulan : e.getValue().subMap(dariBulanKey, true, sampaiBulanKey, true).entrySet()) {
+                    result.get(bulan.getKey()).tambahHitungan(bulan.getValue(), 1);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+package id.ac.stis.pbo.demo1;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock Service
+ * Caches the boundaries of the current day and month (epoch millis in the system time zone), so
+ * "is today" and "this month" checks are two long comparisons without formatting or allocation.
+ *
+ * A scheduled tick rolls the cache over at midnight and notifies the registered listeners.
+ * The tick fires at least once per minute, so a machine that slept through midnight
+ * catches up shortly after waking.
+ */
+final class ClockService {
+    private static final System.Logger LOG = System.getLogger(ClockService.class.getName());
+
+    /**
+     * Immutable boundaries of one day, replaced as a whole at rollover
+     */
+    private static final class Hari {
+        final LocalDate tanggal;
+        final int epochDay;
+        final long awalHari, akhirHari;     // [awal, akhir) of the day
+        final long awalBulan, akhirBulan;   // [awal, akhir) of the month
+        final int awalBulanEpochDay;
+
+        Hari(LocalDate tanggal, ZoneId zone) {
+            this.tanggal = tanggal;
+            this.epochDay = (int) tanggal.toEpochDay();
+            this.awalHari = tanggal.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.akhirHari = tanggal.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            LocalDate awal = tanggal.withDayOfMonth(1);
+            this.awalBulan = awal.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.akhirBulan = awal.plusMonths(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            this.awalBulanEpochDay = (int) awal.toEpochDay();
+        }
+    }
+
+    private static final long MAX_TICK_MILLIS = 60_000;
+
+    private static volatile Hari hari = hitung();
+
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private static final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gawe-clock");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        jadwalkanTick();
+    }
+
+    private ClockService() {
+    }
+
+    private static Hari hitung() {
+        ZoneId zone = ZoneId.systemDefault();
+        return new Hari(LocalDate.now(zone), zone);
+    }
+
+    private static synchronized Hari rollover() {
+        Hari lama = hari;
+        Hari baru = hitung();
+        if (baru.epochDay != lama.epochDay) {
+            hari = baru;
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    LOG.log(System.Logger.Level.ERROR, "Listener pergantian hari gagal", e);
+                }
+            }
+        }
+        return hari;
+    }
+
+    private static void jadwalkanTick() {
+        long delay = Math.min(Math.max(hari.akhirHari - System.currentTimeMillis(), 0) + 1, MAX_TICK_MILLIS);
+        ticker.schedule(() -> {
+            rollover();
+            jadwalkanTick();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a listener that runs (on the clock thread) when the date changes
+     */
+    static void addMidnightListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    static boolean isToday(Date date) {
+        long millis = date.getTime();
+        Hari h = hari;
+        return millis >= h.awalHari && millis < h.akhirHari;
+    }
+
+    static boolean isThisMonth(Date date) {
+        long millis = date.getTime();
+        Hari h = hari;
+        return millis >= h.awalBulan && millis < h.akhirBulan;
+    }
+
+    static LocalDate today() {
+        return hari.tanggal;
+    }
+
+    static int todayEpochDay() {
+        return hari.epochDay;
+    }
+
+    /**
+     * Epoch day of the first day of the current month
+     */
+    static int monthStartEpochDay() {
+        return hari.awalBulanEpochDay;
+    }
+
+    static long todayStartMillis() {
+        return hari.awalHari;
+    }
+
+    static long todayEndMillis() {
+        return hari.akhirHari;
+    }
+
+    static int bulanIni() {
+        return hari.tanggal.getMonthValue();
+    }
+
+    static int tahunIni() {
+        return hari.tanggal.getYear();
+    }
+}
@@ -0,0 +1,98 @@
+package id.ac.stis.pbo.demo1;
+
+import java.util.*;
+
+/**
+ * Leave Request Queues
+ * Leave requests partitioned by division and status (Pending, Disetujui, Ditolak), each queue
+ * ordered by start date. A request moves between queues when its status changes, so the approval
+ * screens and the per-status counters read their data without scanning all requests.
+ *
+ * Not thread-safe; the owning storage synchronizes access.
+ */
+class CutiQueues {
+    private static final Comparator<Cuti> URUTAN = Comparator.comparing((Cuti c) -> c.mulai).thenComparingInt(c -> c.id);
+
+    // division -> status -> requests ordered by start date
+    private final Map<String, Map<String, NavigableSet<Cuti>>> antrian = new HashMap<>();
+
+    // Division each request is queued under (the employee's division may change later)
+    private final Map<Cuti, String> divisiCuti = new IdentityHashMap<>();
+
+    private final Map<String, Integer> jumlahPerStatus = new HashMap<>();
+
+    private NavigableSet<Cuti> queue(String divisi, String status) {
+        return antrian.computeIfAbsent(divisi, k -> new HashMap<>()).computeIfAbsent(status, k -> new TreeSet<>(URUTAN));
+    }
+
+    /**
+     * Queues a new request under the division of its employee and its current status
+     */
+    void tambah(Cuti cuti, String divisi) {
+        divisiCuti.put(cuti, divisi);
+        queue(divisi, cuti.status).add(cuti);
+        jumlahPerStatus.merge(cuti.status, 1, Integer::sum);
+    }
+
+    /**
+     * Moves a request after its status changed from statusLama to cuti.status
+     */
+    void pindahStatus(Cuti cuti, String statusLama) {
+        String divisi = divisiCuti.get(cuti);
+        if (divisi == null || Objects.equals(statusLama, cuti.status)) {
+            return;
+        }
+        queue(divisi, statusLama).remove(cuti);
+        jumlahPerStatus.merge(statusLama, -1, Integer::sum);
+        queue(divisi, cuti.status).add(cuti);
+        jumlahPerStatus.merge(cuti.status, 1, Integer::sum);
+    }
+
+    /**
+     * Moves all requests of an employee to their (new) division
+     */
+    void pindahDivisi(Collection<Cuti> cutiPegawai, String divisiBaru) {
+        for (Cuti cuti : cutiPegawai) {
+            String divisiLama = divisiCuti.get(cuti);
+            if (divisiLama != null && !divisiLama.equals(divisiBaru)) {
+                queue(divisiLama, cuti.status).remove(cuti);
+                queue(divisiBaru, cuti.status).add(cuti);
+                divisiCuti.put(cuti, divisiBaru);
+            }
+        }
+    }
+
+    /**
+     * Gets the requests of a division with a status, ordered by start date
+     */
+    List<Cuti> get(String divisi, String status) {
+        Map<String, NavigableSet<Cuti>> perStatus = antrian.get(divisi);
+        NavigableSet<Cuti> queue = perStatus != null ? perStatus.get(status) : null;
+        return queue != null ? new ArrayList<>(queue) : new ArrayList<>();
+    }
+
+    /**
+     * Gets the requests of all divisions with a status, ordered by start date
+     */
+    List<Cuti> get(String status) {
+        List<Cuti> result = new ArrayList<>(jumlah(status));
+        for (Map<String, NavigableSet<Cuti>> perStatus : antrian.values()) {
+            NavigableSet<Cuti> queue = perStatus.get(status);
+            if (queue != null) {
+                result.addAll(queue);
+            }
+        }
+        result.sort(URUTAN);
+        return result;
+    }
+
+    int jumlah(String status) {
+        return jumlahPerStatus.getOrDefault(status, 0);
+    }
+
+    int jumlah(String divisi, String status) {
+        Map<String, NavigableSet<Cuti>> perStatus = antrian.get(divisi);
+        NavigableSet<Cuti> queue = perStatus != null ? perStatus.get(status) : null;
+        return queue != null ? queue.size() : 0;
+    }
+}
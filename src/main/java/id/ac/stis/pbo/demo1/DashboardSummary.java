@@ -0,0 +1,125 @@
+package id.ac.stis.pbo.demo1;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Dashboard Summary
+ * Immutable per-division figures shown on the HR, manager and employee dashboards: headcount,
+ * Hadir days, active and low-attendance employees, pending leave, today's meetings and payroll.
+ * Computed in one pass over the employees of the month's PayrollRun (which already holds every
+ * Hadir count and salary), one pass over the pending leave requests and one meeting lookup per
+ * division. DataStore.getDashboardSummary shares one summary between all screens until the data
+ * changes or the day rolls over.
+ */
+final class DashboardSummary {
+    static final int BATAS_KEHADIRAN_RENDAH = 15; // Hadir days below this count as low attendance
+    static final int BATAS_HIGH_PERFORMER = 20;
+
+    /**
+     * Figures of one division (or of the whole company); not changed after the summary is computed
+     */
+    static final class Divisi {
+        int jumlahPegawai;
+        long totalHadir;
+        int pegawaiAktif; // at least one Hadir day this month
+        int kehadiranRendah;
+        int highPerformer;
+        long cutiPending;
+        double totalGaji;
+        List<Rapat> rapatHariIni = Collections.emptyList();
+
+        double getRataRataHadir() {
+            return jumlahPegawai > 0 ? (double) totalHadir / jumlahPegawai : 0;
+        }
+
+        private void tambah(long hadir, double gaji) {
+            jumlahPegawai++;
+            totalHadir += hadir;
+            totalGaji += gaji;
+            if (hadir > 0) {
+                pegawaiAktif++;
+            }
+            if (hadir < BATAS_KEHADIRAN_RENDAH) {
+                kehadiranRendah++;
+            }
+            if (hadir >= BATAS_HIGH_PERFORMER) {
+                highPerformer++;
+            }
+        }
+    }
+
+    private static final Divisi KOSONG = new Divisi();
+
+    final long versiData; // StorageBackend.getVersiData of the payroll run
+    final LocalDate tanggal; // today's meetings are of this day
+
+    private final PayrollRun payroll;
+    private final Map<String, Divisi> perDivisi;
+    private final Divisi total;
+
+    private DashboardSummary(long versiData, LocalDate tanggal, PayrollRun payroll, Map<String, Divisi> perDivisi, Divisi total) {
+        this.versiData = versiData;
+        this.tanggal = tanggal;
+        this.payroll = payroll;
+        this.perDivisi = Collections.unmodifiableMap(perDivisi);
+        this.total = total;
+    }
+
+    /**
+     * Computes the summary of the current month from its payroll run
+     */
+    static DashboardSummary hitung(StorageBackend storage, PayrollRun payroll) {
+        LocalDate tanggal = ClockService.today();
+
+        Map<String, Divisi> perDivisi = new TreeMap<>();
+        Divisi total = new Divisi();
+        for (Pegawai p : payroll.getPegawai()) {
+            long hadir = payroll.getHadir(p);
+            double gaji = payroll.getGaji(p);
+            perDivisi.computeIfAbsent(p.divisi, k -> new Divisi()).tambah(hadir, gaji);
+            total.tambah(hadir, gaji);
+        }
+
+        for (Cuti cuti : storage.getCutiByStatus("Pending")) {
+            Pegawai p = storage.getPegawai(cuti.pegawaiOrdinal);
+            if (p != null) {
+                perDivisi.computeIfAbsent(p.divisi, k -> new Divisi()).cutiPending++;
+                total.cutiPending++;
+            }
+        }
+
+        for (Map.Entry<String, Divisi> e : perDivisi.entrySet()) {
+            e.getValue().rapatHariIni = Collections.unmodifiableList(storage.getTodayMeetingsForDivision(e.getKey()));
+        }
+        return new DashboardSummary(payroll.versiData, tanggal, payroll, perDivisi, total);
+    }
+
+    /**
+     * Gets the figures of a division; empty figures for an unknown division
+     */
+    Divisi getDivisi(String divisi) {
+        return perDivisi.getOrDefault(divisi, KOSONG);
+    }
+
+    /**
+     * Gets the company-wide figures
+     */
+    Divisi getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the figures per division, ordered by division name
+     */
+    Map<String, Divisi> getPerDivisi() {
+        return perDivisi;
+    }
+
+    /**
+     * Gets the payroll run the summary was computed from (per-employee Hadir counts and salaries)
+     */
+    PayrollRun getPayroll() {
+        return payroll;
+    }
+}
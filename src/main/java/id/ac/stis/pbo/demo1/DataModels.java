@@ -1,11 +1,15 @@
 package id.ac.stis.pbo.demo1;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
-import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * TUGAS KELOMPOK - DATA MODELS & STORE
@@ -16,6 +20,7 @@ import java.util.stream.Collectors;
  * - Class Presensi (Attendance data model)
  * - Class Rapat (Meeting data model)
  * - Class Cuti (Leave data model)
+ * - Class RekapKehadiran (Monthly attendance rows and counters)
  * - DataStore (Centralized data management)
  * - Utility methods
  */
@@ -25,10 +30,16 @@ import java.util.stream.Collectors;
  * Represents employee information and salary calculations
  */
 class Pegawai {
+    private static final AtomicIntegerFieldUpdater<Pegawai> SISA_CUTI =
+            AtomicIntegerFieldUpdater.newUpdater(Pegawai.class, "sisaCuti");
+
+    static final double BONUS_PER_HADIR = 50000;
+
     String id, nama, password, role, divisi, jabatan;
     Date tglMasuk;
-    int sisaCuti;
+    volatile int sisaCuti;
     double gajiPokok;
+    int ordinal = -1; // Dense dictionary ordinal, assigned by DataStore.addPegawai
 
     public Pegawai(String id, String nama, String password, String role, String divisi, String jabatan, Date tglMasuk) {
         this.id = id;
@@ -42,6 +53,29 @@ class Pegawai {
         this.gajiPokok = calculateGajiPokok(role, divisi);
     }
 
+    /**
+     * Deducts leave days from the remaining leave with a compare-and-set loop. Returns false (and
+     * deducts nothing) if fewer than hari days remain, so the balance never goes negative.
+     */
+    boolean kurangiSisaCuti(int hari) {
+        while (true) {
+            int sisa = sisaCuti;
+            if (sisa < hari) {
+                return false;
+            }
+            if (SISA_CUTI.compareAndSet(this, sisa, sisa - hari)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back leave days taken by kurangiSisaCuti
+     */
+    void kembalikanSisaCuti(int hari) {
+        SISA_CUTI.addAndGet(this, hari);
+    }
+
     /**
      * Calculates base salary based on role and division
      */
@@ -78,21 +112,22 @@ class Pegawai {
     }
 
     /**
-     * Calculates monthly salary with experience and attendance bonuses
+     * Calculates this employee's salary for the current month (memoized, see PayrollCache).
+     * Screens that list many employees use the shared DataStore.getPayrollRun() instead.
      */
     public double calculateGajiBulanan() {
-        // Calculate work experience in years
-        long workYears = ChronoUnit.YEARS.between(
-                tglMasuk.toInstant().atZone(ZoneId.systemDefault()).toLocalDate(),
-                LocalDate.now()
-        );
+        return DataStore.getGajiBulanan(this, ClockService.bulanIni(), ClockService.tahunIni());
+    }
 
+    /**
+     * Calculates monthly salary with experience and attendance bonuses
+     */
+    static double hitungGajiBulanan(double gajiPokok, long workYears, long hadirCount) {
         // Experience bonus: 5% per year, max 50%
         double experienceMultiplier = 1 + Math.min(workYears * 0.05, 0.5);
 
         // Attendance bonus: 50k per day
-        long hadirCount = DataStore.getKehadiranBulan(id, LocalDate.now().getMonthValue(), LocalDate.now().getYear());
-        double attendanceBonus = hadirCount * 50000;
+        double attendanceBonus = hadirCount * BONUS_PER_HADIR;
 
         return (gajiPokok * experienceMultiplier) + attendanceBonus;
     }
@@ -109,12 +144,14 @@ class Pegawai {
  */
 class Presensi {
     String pegawaiId;
+    int pegawaiOrdinal; // Dictionary ordinal of pegawaiId
     Date tanggal;
     String keterangan; // Hadir, Izin, Sakit, Lembur
     String approvedBy; // For validation by division head
 
     public Presensi(String pegawaiId, Date tanggal, String keterangan) {
         this.pegawaiId = pegawaiId;
+        this.pegawaiOrdinal = DataStore.ordinalOf(pegawaiId);
         this.tanggal = tanggal;
         this.keterangan = keterangan;
         this.approvedBy = null;
@@ -139,6 +176,7 @@ class Presensi {
  * Represents meeting information and scheduling
  */
 class Rapat {
+    int id = -1; // Position in the storage meeting list, set by addRapat
     String namaRapat, topik, tema, divisi, pihakTerlibat, ruangan;
     Date tanggalMulai, tanggalSelesai;
     String ringkasan;
@@ -177,14 +215,20 @@ class Rapat {
  * Represents leave applications and approvals
  */
 class Cuti {
+    private static final AtomicReferenceFieldUpdater<Cuti, String> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Cuti.class, String.class, "status");
+
+    int id = -1; // Position in the storage leave list, assigned by addCuti
     String pegawaiId;
+    int pegawaiOrdinal; // Dictionary ordinal of pegawaiId
     Date mulai, selesai;
     String alasan, keperluan;
-    String status; // Pending, Disetujui, Ditolak
-    String approvedBy;
+    volatile String status; // Pending, Disetujui, Ditolak
+    volatile String approvedBy;
 
     public Cuti(String pegawaiId, Date mulai, Date selesai, String alasan, String keperluan) {
         this.pegawaiId = pegawaiId;
+        this.pegawaiOrdinal = DataStore.ordinalOf(pegawaiId);
         this.mulai = mulai;
         this.selesai = selesai;
         this.alasan = alasan;
@@ -194,12 +238,32 @@ class Cuti {
     }
 
     /**
-     * Calculates number of leave days
+     * Moves a pending request to statusBaru. The status is swapped with compare-and-set, so of
+     * several concurrent approvals/rejections exactly one succeeds; the others return false.
+     */
+    boolean proses(String statusBaru, String approvedBy) {
+        String lama = status;
+        if (!"Pending".equals(lama) || !STATUS.compareAndSet(this, lama, statusBaru)) {
+            return false;
+        }
+        this.approvedBy = approvedBy;
+        return true;
+    }
+
+    /**
+     * Moves a request that proses moved to statusBaru back to Pending
+     */
+    void batalkanProses(String statusBaru) {
+        if (STATUS.compareAndSet(this, statusBaru, "Pending")) {
+            this.approvedBy = null;
+        }
+    }
+
+    /**
+     * Calculates number of leave days (working days only, see KalenderKerja)
      */
     public long getJumlahHari() {
-        LocalDate start = mulai.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        LocalDate end = selesai.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        return ChronoUnit.DAYS.between(start, end) + 1;
+        return KalenderKerja.hariKerja(mulai, selesai);
     }
 
     /**
@@ -217,25 +281,206 @@ class Cuti {
     }
 }
 
+/**
+ * Monthly Attendance Recap
+ * Holds the rows and per-status counters of one employee in one month.
+ * Rows of a sealed month live in a PresensiSegment range; rows added afterwards
+ * (and all rows of the current month) are row numbers in the PresensiStore.
+ */
+class RekapKehadiran {
+    static final RekapKehadiran KOSONG = new RekapKehadiran(null);
+
+    private final PresensiSegment segment;
+    private final int segmentStart, segmentRows;
+
+    private final PresensiStore store;
+    private int[] rows = new int[8];
+    private int jumlah;
+    int hadir, izin, sakit, lembur;
+
+    RekapKehadiran(PresensiStore store) {
+        this(store, null, 0, 0);
+    }
+
+    /**
+     * Creates a recap that only holds counters (e.g. computed by a database query)
+     */
+    static RekapKehadiran hitungan(int hadir, int izin, int sakit, int lembur) {
+        RekapKehadiran rekap = new RekapKehadiran(null);
+        rekap.hadir = hadir;
+        rekap.izin = izin;
+        rekap.sakit = sakit;
+        rekap.lembur = lembur;
+        return rekap;
+    }
+
+    /**
+     * Creates a recap over the rows [start, start + count) of a sealed month segment
+     */
+    RekapKehadiran(PresensiStore store, PresensiSegment segment, int start, int count) {
+        this.store = store;
+        this.segment = segment;
+        this.segmentStart = start;
+        this.segmentRows = count;
+        for (int i = 0; i < count; i++) {
+            hitung(segment.status(start + i));
+        }
+    }
+
+    /**
+     * Adds a PresensiStore row and updates the counter of its status
+     */
+    void tambah(int row, byte status) {
+        if (jumlah == rows.length) {
+            rows = Arrays.copyOf(rows, jumlah * 2);
+        }
+        rows[jumlah++] = row;
+        hitung(status);
+    }
+
+    /**
+     * Updates the counter of a status without adding a row (aggregates such as AttendanceCube)
+     */
+    void hitung(byte status) {
+        switch (status) {
+            case PresensiStore.HADIR:
+                hadir++;
+                break;
+            case PresensiStore.IZIN:
+                izin++;
+                break;
+            case PresensiStore.SAKIT:
+                sakit++;
+                break;
+            case PresensiStore.LEMBUR:
+                lembur++;
+                break;
+        }
+    }
+
+    /**
+     * Adds (tanda 1) or subtracts (tanda -1) the counters of another recap
+     */
+    void tambahHitungan(RekapKehadiran lain, int tanda) {
+        hadir += tanda * lain.hadir;
+        izin += tanda * lain.izin;
+        sakit += tanda * lain.sakit;
+        lembur += tanda * lain.lembur;
+    }
+
+    int jumlah() {
+        return segmentRows + jumlah;
+    }
+
+    int epochDay(int i) {
+        return i < segmentRows ? segment.epochDay(segmentStart + i) : store.epochDay(rows[i - segmentRows]);
+    }
+
+    byte status(int i) {
+        return i < segmentRows ? segment.status(segmentStart + i) : store.status(rows[i - segmentRows]);
+    }
+
+    /**
+     * Builds the Presensi object of the i-th row
+     */
+    Presensi presensi(int i) {
+        return i < segmentRows ? segment.get(segmentStart + i) : store.get(rows[i - segmentRows]);
+    }
+}
+
 /**
  * Centralized Data Store
- * Manages all application data and provides utility methods
+ * Manages all application data through a pluggable StorageBackend and provides utility methods
  */
 class DataStore {
-    // Data collections
-    static Map<String, Pegawai> pegawaiMap = new HashMap<>();
-    static List<Presensi> presensiList = new ArrayList<>();
-    static List<Rapat> rapatList = new ArrayList<>();
-    static List<Cuti> cutiList = new ArrayList<>();
+    private static final System.Logger LOG = System.getLogger(DataStore.class.getName());
+
+    // Storage implementation, replaced by init()/initJdbc() (in memory without persistence until then)
+    private static StorageBackend storage = new InMemoryStorage();
+
+    // Startup measurement of the last init() (load plus sample data), see StartupBenchmarkTest
+    static long startupMillis;
+
+    // Payroll run of the current month, see getPayrollRun
+    private static volatile PayrollRun payrollRun;
+
+    // Dashboard figures of the current month, see getDashboardSummary
+    private static volatile DashboardSummary dashboardSummary;
+
+    // Whether the hook that closes the storage on exit is registered (once for all init calls)
+    private static boolean shutdownHookAdded;
+
+    // Memoized monthly salaries per employee and month
+    private static final PayrollCache payrollCache = new PayrollCache();
 
     /**
-     * Initializes sample data for the application
+     * Loads persisted data from the data directory (latest snapshot plus the journal tail),
+     * or initializes sample data on first run.
+     *
+     * Configuration (system properties):
+     * - gawe.dataDir: data directory (default "gawe-data")
+     * - gawe.presensi.offheap: keep attendance rows in native memory (default false)
+     * - see JournaledStorage for journal and snapshot settings
      */
     public static void init() {
-        initializeEmployees();
-        initializeAttendanceData();
-        initializeMeetingData();
-        initializeLeaveData();
+        init(new JournaledStorage(Paths.get(System.getProperty("gawe.dataDir", "gawe-data"))));
+    }
+
+    /**
+     * Loads data from an embedded JDBC database instead of the journal, or initializes sample data
+     * into it on first run
+     */
+    public static void initJdbc(String url) {
+        try {
+            init(new JdbcStorage(url));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Gagal membuka database " + url, e);
+        }
+    }
+
+    /**
+     * Switches to the given storage, loads its data and adds sample data if it has none
+     */
+    public static void init(StorageBackend backend) {
+        long start = System.nanoTime();
+        storage = backend;
+        try {
+            if (!backend.load()) {
+                initializeEmployees();
+                initializeAttendanceData();
+                initializeMeetingData();
+                initializeLeaveData();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal memuat data", e);
+        }
+
+        startupMillis = (System.nanoTime() - start) / 1_000_000;
+        LOG.log(System.Logger.Level.INFO, "DataStore ({0}) dimuat dalam {1} ms", backend.getClass().getSimpleName(), startupMillis);
+
+        synchronized (DataStore.class) {
+            if (!shutdownHookAdded) {
+                Runtime.getRuntime().addShutdownHook(new Thread(DataStore::close, "gawe-datastore-close"));
+                shutdownHookAdded = true;
+            }
+        }
+    }
+
+    /**
+     * Gets the active storage implementation
+     */
+    static StorageBackend getStorage() {
+        return storage;
+    }
+
+    /**
+     * Flushes and closes the storage
+     */
+    public static void close() {
+        storage.close();
+        if (payrollCache.getHits() + payrollCache.getMisses() > 0) {
+            LOG.log(System.Logger.Level.DEBUG, "{0}", payrollCache);
+        }
     }
 
     /**
@@ -245,24 +490,18 @@ class DataStore {
         Calendar cal = Calendar.getInstance();
 
         // Main test accounts
-        pegawaiMap.put("pegawai@gawe.com",
-                new Pegawai("pegawai@gawe.com", "Andi Prasetyo", "123", "pegawai", "Marketing", "Staff Marketing", cal.getTime()));
+        addPegawai(new Pegawai("pegawai@gawe.com", "Andi Prasetyo", "123", "pegawai", "Marketing", "Staff Marketing", cal.getTime()));
 
-        pegawaiMap.put("hr@gawe.com",
-                new Pegawai("hr@gawe.com", "Budi Santoso", "admin", "hr", "HR", "HRD", cal.getTime()));
+        addPegawai(new Pegawai("hr@gawe.com", "Budi Santoso", "admin", "hr", "HR", "HRD", cal.getTime()));
 
-        pegawaiMap.put("manajer@gawe.com",
-                new Pegawai("manajer@gawe.com", "Cici Amelia", "456", "manajer", "Keuangan", "Manajer Keuangan", cal.getTime()));
+        addPegawai(new Pegawai("manajer@gawe.com", "Cici Amelia", "456", "manajer", "Keuangan", "Manajer Keuangan", cal.getTime()));
 
-        pegawaiMap.put("kepala.marketing@gawe.com",
-                new Pegawai("kepala.marketing@gawe.com", "Dedi Kurniawan", "789", "manajer", "Marketing", "Kepala Divisi Marketing", cal.getTime()));
+        addPegawai(new Pegawai("kepala.marketing@gawe.com", "Dedi Kurniawan", "789", "manajer", "Marketing", "Kepala Divisi Marketing", cal.getTime()));
 
         // Additional staff
-        pegawaiMap.put("staff.hr@gawe.com",
-                new Pegawai("staff.hr@gawe.com", "Eka Putri", "password123", "pegawai", "HR", "Staff HR", cal.getTime()));
+        addPegawai(new Pegawai("staff.hr@gawe.com", "Eka Putri", "password123", "pegawai", "HR", "Staff HR", cal.getTime()));
 
-        pegawaiMap.put("staff.keuangan@gawe.com",
-                new Pegawai("staff.keuangan@gawe.com", "Fajar Rahman", "password123", "pegawai", "Keuangan", "Staff Keuangan", cal.getTime()));
+        addPegawai(new Pegawai("staff.keuangan@gawe.com", "Fajar Rahman", "password123", "pegawai", "Keuangan", "Staff Keuangan", cal.getTime()));
     }
 
     /**
@@ -282,15 +521,15 @@ class DataStore {
                     attendanceCal.get(Calendar.DAY_OF_WEEK) != Calendar.SUNDAY) {
 
                 // Regular attendance for main employees
-                presensiList.add(new Presensi("pegawai@gawe.com", attendanceCal.getTime(), "Hadir"));
-                presensiList.add(new Presensi("hr@gawe.com", attendanceCal.getTime(), "Hadir"));
-                presensiList.add(new Presensi("manajer@gawe.com", attendanceCal.getTime(), "Hadir"));
+                addPresensi(new Presensi("pegawai@gawe.com", attendanceCal.getTime(), "Hadir"));
+                addPresensi(new Presensi("hr@gawe.com", attendanceCal.getTime(), "Hadir"));
+                addPresensi(new Presensi("manajer@gawe.com", attendanceCal.getTime(), "Hadir"));
 
                 // Varied attendance for staff
                 if (i % 3 == 0) {
-                    presensiList.add(new Presensi("staff.hr@gawe.com", attendanceCal.getTime(), "Lembur"));
+                    addPresensi(new Presensi("staff.hr@gawe.com", attendanceCal.getTime(), "Lembur"));
                 } else {
-                    presensiList.add(new Presensi("staff.hr@gawe.com", attendanceCal.getTime(), "Hadir"));
+                    addPresensi(new Presensi("staff.hr@gawe.com", attendanceCal.getTime(), "Hadir"));
                 }
             }
         }
@@ -308,7 +547,7 @@ class DataStore {
                 "Marketing", new Date(), meetingCal.getTime(), "Tim Marketing", "Ruang A");
         rapat1.divisiDibutuhkan.add("Marketing");
         rapat1.divisiDibutuhkan.add("HR");
-        rapatList.add(rapat1);
+        addRapat(rapat1);
 
         // Tomorrow's meeting
         meetingCal.add(Calendar.DAY_OF_MONTH, 1);
@@ -320,7 +559,7 @@ class DataStore {
                 "Keuangan", meetingCal.getTime(), meetingEnd.getTime(), "Tim Keuangan", "Ruang B");
         rapat2.divisiDibutuhkan.add("Keuangan");
         rapat2.divisiDibutuhkan.add("HR");
-        rapatList.add(rapat2);
+        addRapat(rapat2);
     }
 
     /**
@@ -335,14 +574,14 @@ class DataStore {
         leaveCal.add(Calendar.DAY_OF_MONTH, 2);
         Date leaveEnd = leaveCal.getTime();
 
-        cutiList.add(new Cuti("pegawai@gawe.com", leaveStart, leaveEnd, "Keperluan keluarga", "Pernikahan adik"));
-        cutiList.add(new Cuti("staff.hr@gawe.com", new Date(), new Date(), "Sakit", "Demam tinggi"));
+        addCuti(new Cuti("pegawai@gawe.com", leaveStart, leaveEnd, "Keperluan keluarga", "Pernikahan adik"));
+        addCuti(new Cuti("staff.hr@gawe.com", new Date(), new Date(), "Sakit", "Demam tinggi"));
 
         // Sample approved leave
         Cuti approvedLeave = new Cuti("staff.keuangan@gawe.com", leaveStart, leaveEnd, "Liburan", "Liburan keluarga");
         approvedLeave.status = "Disetujui";
         approvedLeave.approvedBy = "hr@gawe.com";
-        cutiList.add(approvedLeave);
+        addCuti(approvedLeave);
     }
 
     // Utility Methods
@@ -351,22 +590,125 @@ class DataStore {
      * Gets employee by ID
      */
     public static Pegawai getPegawai(String id) {
-        return pegawaiMap.get(id);
+        return storage.getPegawai(id);
+    }
+
+    /**
+     * Gets employee by dictionary ordinal
+     */
+    public static Pegawai getPegawai(int ordinal) {
+        return storage.getPegawai(ordinal);
+    }
+
+    /**
+     * Gets the dictionary ordinal of an employee id, or -1 if the id is unknown
+     */
+    public static int ordinalOf(String id) {
+        Pegawai pegawai = storage.getPegawai(id);
+        return pegawai != null ? pegawai.ordinal : -1;
+    }
+
+    /**
+     * Gets all employees in ordinal order
+     */
+    public static Collection<Pegawai> getAllPegawai() {
+        return storage.getAllPegawai();
     }
 
     /**
      * Gets attendance count for a specific month
      */
     public static long getKehadiranBulan(String pegawaiId, int bulan, int tahun) {
-        return presensiList.stream()
-                .filter(p -> p.pegawaiId.equals(pegawaiId))
-                .filter(p -> {
-                    Calendar cal = Calendar.getInstance();
-                    cal.setTime(p.tanggal);
-                    return cal.get(Calendar.MONTH) + 1 == bulan && cal.get(Calendar.YEAR) == tahun;
-                })
-                .filter(p -> "Hadir".equals(p.keterangan))
-                .count();
+        return storage.getKehadiranBulan(ordinalOf(pegawaiId), bulan, tahun);
+    }
+
+    /**
+     * Gets attendance records of an employee for a specific month
+     */
+    public static List<Presensi> getPresensiBulan(String pegawaiId, int bulan, int tahun) {
+        Pegawai pegawai = getPegawai(pegawaiId);
+        return pegawai != null ? storage.getPresensiBulan(pegawai, bulan, tahun) : new ArrayList<>();
+    }
+
+    /**
+     * Gets all attendance records of an employee, newest first
+     */
+    public static List<Presensi> getPresensiPegawai(String pegawaiId) {
+        Pegawai pegawai = getPegawai(pegawaiId);
+        return pegawai != null ? storage.getPresensiPegawai(pegawai) : new ArrayList<>();
+    }
+
+    /**
+     * Checks whether an employee already has an attendance record today
+     */
+    public static boolean sudahPresensiHariIni(String pegawaiId) {
+        int ordinal = ordinalOf(pegawaiId);
+        return ordinal >= 0 && storage.adaPresensi(ordinal, ClockService.todayEpochDay());
+    }
+
+    /**
+     * Gets attendance counters (Hadir/Izin/Sakit/Lembur) of an employee for a specific month
+     */
+    public static RekapKehadiran getRekapKehadiran(String pegawaiId, int bulan, int tahun) {
+        return getRekapKehadiran(ordinalOf(pegawaiId), bulan, tahun);
+    }
+
+    /**
+     * Gets attendance counters of an employee ordinal for a specific month
+     */
+    public static RekapKehadiran getRekapKehadiran(int ordinal, int bulan, int tahun) {
+        return storage.getRekapKehadiran(ordinal, bulan, tahun);
+    }
+
+    /**
+     * Gets the attendance counters of a division's current employees for a month; null divisi means all divisions
+     */
+    public static RekapKehadiran getRekapDivisi(String divisi, int bulan, int tahun) {
+        return storage.getRekapDivisi(divisi, bulan, tahun);
+    }
+
+    /**
+     * Gets the attendance counters of every division in a month, ordered by division name
+     */
+    public static Map<String, RekapKehadiran> getRekapPerDivisi(int bulan, int tahun) {
+        return storage.getRekapPerDivisi(bulan, tahun);
+    }
+
+    /**
+     * Gets the attendance counters of a division (null: all divisions) for every month in [dari, sampai]
+     */
+    public static SortedMap<YearMonth, RekapKehadiran> getRekapPerBulan(String divisi, YearMonth dari, YearMonth sampai) {
+        return storage.getRekapPerBulan(divisi, dari, sampai);
+    }
+
+    /**
+     * Gets the attendance counters of every employee in a month, indexed by employee ordinal
+     * (one query for lists and reports instead of one per employee)
+     */
+    public static RekapKehadiran[] getRekapSemuaPegawai(int bulan, int tahun) {
+        return storage.getRekapSemuaPegawai(bulan, tahun);
+    }
+
+    /**
+     * Gets the Hadir count of every employee in a month, indexed by employee ordinal
+     */
+    public static long[] getKehadiranSemuaPegawai(int bulan, int tahun) {
+        return storage.getKehadiranSemuaPegawai(bulan, tahun);
+    }
+
+    /**
+     * Builds the month key used by the attendance index
+     */
+    static int bulanKey(int bulan, int tahun) {
+        return tahun * 12 + (bulan - 1);
+    }
+
+    /**
+     * Builds the month key of an epoch day
+     */
+    static int bulanKey(int epochDay) {
+        LocalDate tanggal = LocalDate.ofEpochDay(epochDay);
+        return bulanKey(tanggal.getMonthValue(), tanggal.getYear());
     }
 
     /**
@@ -377,70 +719,247 @@ class DataStore {
     }
 
     /**
-     * Checks if a date is today
+     * Checks if a date is today (see ClockService)
      */
     public static boolean isToday(Date date) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        return sdf.format(date).equals(sdf.format(new Date()));
+        return ClockService.isToday(date);
+    }
+
+    /**
+     * Checks if a date is in the current month
+     */
+    public static boolean isThisMonth(Date date) {
+        return ClockService.isThisMonth(date);
     }
 
     /**
      * Gets all employees by division
      */
     public static List<Pegawai> getPegawaiByDivision(String divisi) {
-        return pegawaiMap.values().stream()
-                .filter(p -> p.divisi.equals(divisi))
-                .collect(Collectors.toList());
+        return storage.getPegawaiByDivision(divisi);
     }
 
     /**
-     * Gets pending leave requests for a division
+     * Counts employees per division
      */
-    public static List<Cuti> getPendingCutiByDivision(String divisi) {
-        return cutiList.stream()
-                .filter(c -> "Pending".equals(c.status))
-                .filter(c -> {
-                    Pegawai p = getPegawai(c.pegawaiId);
-                    return p != null && p.divisi.equals(divisi);
-                })
-                .collect(Collectors.toList());
+    public static Map<String, Long> countPegawaiByDivision() {
+        return storage.countPegawaiByDivision();
+    }
+
+    /**
+     * Counts employees per role
+     */
+    public static Map<String, Long> countPegawaiByRole() {
+        return storage.countPegawaiByRole();
+    }
+
+    /**
+     * Sums the monthly salaries per division
+     */
+    public static Map<String, Double> getGajiBulananByDivision() {
+        return getPayrollRun().getTotalPerDivisi();
+    }
+
+    /**
+     * Gets the payroll run of the current month. The run is shared until the data changes
+     * or the month rolls over.
+     */
+    public static PayrollRun getPayrollRun() {
+        PayrollRun run = payrollRun;
+        if (run == null || run.versiData != storage.getVersiData()
+                || run.bulan != ClockService.bulanIni() || run.tahun != ClockService.tahunIni()) {
+            run = PayrollRun.hitung(storage, payrollCache, ClockService.bulanIni(), ClockService.tahunIni());
+            payrollRun = run;
+        }
+        return run;
+    }
+
+    /**
+     * Gets the dashboard figures of the current month. The summary is shared by all dashboards
+     * until the data changes (a new payroll run) or the day rolls over (today's meetings).
+     */
+    public static DashboardSummary getDashboardSummary() {
+        PayrollRun run = getPayrollRun();
+        DashboardSummary summary = dashboardSummary;
+        if (summary == null || summary.getPayroll() != run || !summary.tanggal.equals(ClockService.today())) {
+            summary = DashboardSummary.hitung(storage, run);
+            dashboardSummary = summary;
+        }
+        return summary;
+    }
+
+    /**
+     * Computes a payroll run for any month
+     */
+    public static PayrollRun getPayrollRun(int bulan, int tahun) {
+        return PayrollRun.hitung(storage, payrollCache, bulan, tahun);
+    }
+
+    /**
+     * Gets the monthly salary of one employee (memoized)
+     */
+    public static double getGajiBulanan(Pegawai p, int bulan, int tahun) {
+        long generasi = payrollCache.generasi();
+        int bulanKey = bulanKey((int) LocalDate.of(tahun, bulan, 1).toEpochDay());
+        return payrollCache.get(p, bulanKey, generasi, () -> PayrollRun.hitungGaji(p,
+                getRekapKehadiran(p.ordinal, bulan, tahun).hadir, PayrollRun.tanggalAcuan(bulan, tahun)));
+    }
+
+    /**
+     * Gets the hit/miss statistics of the payroll cache
+     */
+    public static PayrollCache getPayrollCache() {
+        return payrollCache;
+    }
+
+    /**
+     * Gets all meetings
+     */
+    public static List<Rapat> getAllRapat() {
+        return storage.getAllRapat();
+    }
+
+    /**
+     * Gets the meetings organized by a division, earliest first
+     */
+    public static List<Rapat> getRapatByDivision(String divisi) {
+        return storage.getRapatByDivision(divisi);
+    }
+
+    /**
+     * Gets the meetings of a division overlapping [from, to) in epoch millis, earliest first
+     */
+    public static List<Rapat> getRapatDivisi(String divisi, long from, long to) {
+        return storage.getRapatDivisi(divisi, from, to);
     }
 
     /**
      * Gets today's meetings for a division
      */
     public static List<Rapat> getTodayMeetingsForDivision(String divisi) {
-        return rapatList.stream()
-                .filter(r -> isToday(r.tanggalMulai))
-                .filter(r -> r.divisiDibutuhkan.contains(divisi) || r.divisi.equals(divisi))
-                .collect(Collectors.toList());
+        return storage.getTodayMeetingsForDivision(divisi);
+    }
+
+    /**
+     * Gets all leave requests
+     */
+    public static List<Cuti> getAllCuti() {
+        return storage.getAllCuti();
+    }
+
+    /**
+     * Gets leave requests with a given status, ordered by start date
+     */
+    public static List<Cuti> getCutiByStatus(String status) {
+        return storage.getCutiByStatus(status);
+    }
+
+    /**
+     * Counts leave requests with a given status
+     */
+    public static long countCutiByStatus(String status) {
+        return storage.countCutiByStatus(status);
+    }
+
+    /**
+     * Gets the leave requests of an employee, newest first
+     */
+    public static List<Cuti> getCutiPegawai(String pegawaiId) {
+        int ordinal = ordinalOf(pegawaiId);
+        return ordinal >= 0 ? storage.getCutiPegawai(ordinal) : new ArrayList<>();
+    }
+
+    /**
+     * Gets the leave requests of a division with a status, ordered by start date
+     */
+    public static List<Cuti> getCutiDivisi(String divisi, String status) {
+        return storage.getCutiDivisi(divisi, status);
+    }
+
+    /**
+     * Counts the leave requests of a division with a status
+     */
+    public static long countCutiDivisi(String divisi, String status) {
+        return storage.countCutiDivisi(divisi, status);
+    }
+
+    /**
+     * Gets pending leave requests for a division
+     */
+    public static List<Cuti> getPendingCutiByDivision(String divisi) {
+        return storage.getPendingCutiByDivision(divisi);
     }
 
     /**
      * Adds new employee
      */
     public static void addPegawai(Pegawai pegawai) {
-        pegawaiMap.put(pegawai.id, pegawai);
+        storage.addPegawai(pegawai);
+        payrollCache.pegawaiBerubah(pegawai);
+    }
+
+    /**
+     * Records changes made to an employee's data (profile, role, division, password, leave balance)
+     */
+    public static void updatePegawai(Pegawai pegawai) {
+        storage.updatePegawai(pegawai);
+        payrollCache.pegawaiBerubah(pegawai);
     }
 
     /**
      * Adds new attendance record
      */
     public static void addPresensi(Presensi presensi) {
-        presensiList.add(presensi);
+        storage.addPresensi(presensi);
+        payrollCache.presensiDitambah(presensi.pegawaiOrdinal, bulanKey(PresensiStore.toEpochDay(presensi.tanggal)));
     }
 
     /**
      * Adds new meeting
      */
     public static void addRapat(Rapat rapat) {
-        rapatList.add(rapat);
+        storage.addRapat(rapat);
+    }
+
+    /**
+     * Adds a meeting if its room is free; returns null on success, otherwise the conflicting meeting
+     */
+    public static Rapat addRapatTanpaBentrok(Rapat rapat) {
+        return storage.addRapatTanpaBentrok(rapat);
+    }
+
+    /**
+     * Gets the meetings booked in a room overlapping [from, to) in epoch millis, earliest first
+     */
+    public static List<Rapat> getRapatRuangan(String ruangan, long from, long to) {
+        return storage.getRapatRuangan(ruangan, from, to);
+    }
+
+    /**
+     * Checks whether a room has no meeting overlapping [from, to) in epoch millis
+     */
+    public static boolean isRuanganKosong(String ruangan, long from, long to) {
+        return storage.getBentrokRuangan(ruangan, from, to) == null;
     }
 
     /**
      * Adds new leave request
      */
     public static void addCuti(Cuti cuti) {
-        cutiList.add(cuti);
+        storage.addCuti(cuti);
+    }
+
+    /**
+     * Approves or rejects a leave request; approval deducts the employee's remaining leave
+     */
+    public static void updateStatusCuti(Cuti cuti, String status, String approvedBy) {
+        storage.updateStatusCuti(cuti, status, approvedBy);
+    }
+
+    /**
+     * Approves or rejects several leave requests at once; nothing is changed if one of them fails
+     */
+    public static void updateStatusCuti(List<Cuti> daftar, String status, String approvedBy) {
+        storage.updateStatusCuti(daftar, status, approvedBy);
     }
-}
\ No newline at end of file
+}
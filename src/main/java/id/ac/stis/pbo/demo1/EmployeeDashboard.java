@@ -157,13 +157,12 @@ public class EmployeeDashboard extends Application {
         titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 24));
 
         // Statistics cards
+        PayrollRun payroll = DataStore.getDashboardSummary().getPayroll();
         HBox statsRow = new HBox(20);
         statsRow.getChildren().addAll(
-                createStatCard("Kehadiran Bulan Ini",
-                        String.valueOf(DataStore.getKehadiranBulan(pegawai.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear())),
-                        "#28a745"),
+                createStatCard("Kehadiran Bulan Ini", String.valueOf(payroll.getHadir(pegawai)), "#28a745"),
                 createStatCard("Sisa Cuti", pegawai.sisaCuti + " hari", "#17a2b8"),
-                createStatCard("Gaji Bulan Ini", "Rp " + String.format("%.0f", pegawai.calculateGajiBulanan()), "#ffc107")
+                createStatCard("Gaji Bulan Ini", "Rp " + String.format("%.0f", payroll.getGaji(pegawai)), "#ffc107")
         );
 
         // Recent activities
@@ -208,10 +207,8 @@ public class EmployeeDashboard extends Application {
         activitiesList.setPrefHeight(200);
 
         // Add recent attendance records
-        for (Presensi p : DataStore.presensiList) {
-            if (p.pegawaiId.equals(pegawai.id)) {
-                activitiesList.getItems().add("Presensi: " + p.keterangan + " - " + p.getFormattedDate());
-            }
+        for (Presensi p : DataStore.getPresensiPegawai(pegawai.id)) {
+            activitiesList.getItems().add("Presensi: " + p.keterangan + " - " + p.getFormattedDate());
         }
 
         if (activitiesList.getItems().isEmpty()) {
@@ -279,14 +276,18 @@ public class EmployeeDashboard extends Application {
     private void handlePresensiSubmit(ComboBox<String> statusCombo, TextArea keteranganArea) {
         if (statusCombo.getValue() != null) {
             // Check if already submitted today
-            boolean alreadySubmitted = DataStore.presensiList.stream()
-                    .anyMatch(p -> p.pegawaiId.equals(pegawai.id) && DataStore.isToday(p.tanggal));
+            boolean alreadySubmitted = DataStore.sudahPresensiHariIni(pegawai.id);
 
             if (alreadySubmitted) {
                 showAlert(Alert.AlertType.WARNING, "Presensi Sudah Ada", "Anda sudah melakukan presensi hari ini!");
             } else {
                 Presensi presensi = new Presensi(pegawai.id, new Date(), statusCombo.getValue());
-                DataStore.addPresensi(presensi);
+                try {
+                    DataStore.addPresensi(presensi);
+                } catch (IllegalArgumentException e) {
+                    showAlert(Alert.AlertType.ERROR, "Presensi Gagal", e.getMessage());
+                    return;
+                }
                 showAlert(Alert.AlertType.INFORMATION, "Presensi Berhasil", "Presensi berhasil dicatat!");
                 showPresensiContent(); // Refresh
             }
@@ -316,10 +317,7 @@ public class EmployeeDashboard extends Application {
 
         historyTable.getColumns().addAll(tanggalCol, statusCol);
 
-        ObservableList<Presensi> userPresensi = DataStore.presensiList.stream()
-                .filter(p -> p.pegawaiId.equals(pegawai.id))
-                .sorted((a, b) -> b.tanggal.compareTo(a.tanggal))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        ObservableList<Presensi> userPresensi = FXCollections.observableArrayList(DataStore.getPresensiPegawai(pegawai.id));
 
         historyTable.setItems(userPresensi);
         historyTable.setPrefHeight(300);
@@ -363,7 +361,7 @@ public class EmployeeDashboard extends Application {
         ListView<String> todayList = new ListView<>();
         todayList.setPrefHeight(150);
 
-        List<Rapat> todayMeetingsList = DataStore.getTodayMeetingsForDivision(pegawai.divisi);
+        List<Rapat> todayMeetingsList = DataStore.getDashboardSummary().getDivisi(pegawai.divisi).rapatHariIni;
 
         if (todayMeetingsList.isEmpty()) {
             todayList.getItems().add("Tidak ada rapat hari ini");
@@ -405,10 +403,8 @@ public class EmployeeDashboard extends Application {
 
         upcomingTable.getColumns().addAll(namaCol, tanggalCol, ruanganCol);
 
-        ObservableList<Rapat> userMeetings = DataStore.rapatList.stream()
-                .filter(r -> !DataStore.isToday(r.tanggalMulai) && r.tanggalMulai.after(new Date()))
-                .filter(r -> r.divisiDibutuhkan.contains(pegawai.divisi) || r.divisi.equals(pegawai.divisi))
-                .sorted((a, b) -> a.tanggalMulai.compareTo(b.tanggalMulai))
+        ObservableList<Rapat> userMeetings = DataStore.getRapatDivisi(pegawai.divisi, ClockService.todayEndMillis(), Long.MAX_VALUE).stream()
+                .filter(r -> r.tanggalMulai.getTime() >= ClockService.todayEndMillis())
                 .collect(Collectors.toCollection(FXCollections::observableArrayList));
 
         upcomingTable.setItems(userMeetings);
@@ -496,14 +492,14 @@ public class EmployeeDashboard extends Application {
             return;
         }
 
-        // Check for weekend
-        if (DataStore.isWeekend(mulaiPicker.getValue()) || DataStore.isWeekend(selesaiPicker.getValue())) {
-            showAlert(Alert.AlertType.ERROR, "Tanggal Tidak Valid", "Tidak bisa mengajukan cuti di hari weekend!");
+        // Check for weekend and public holidays
+        if (!KalenderKerja.isHariKerja(mulaiPicker.getValue()) || !KalenderKerja.isHariKerja(selesaiPicker.getValue())) {
+            showAlert(Alert.AlertType.ERROR, "Tanggal Tidak Valid", "Tidak bisa mengajukan cuti di hari weekend atau hari libur!");
             return;
         }
 
-        // Calculate days
-        long jumlahHari = ChronoUnit.DAYS.between(mulaiPicker.getValue(), selesaiPicker.getValue()) + 1;
+        // Calculate working days
+        long jumlahHari = KalenderKerja.hariKerja(mulaiPicker.getValue(), selesaiPicker.getValue());
 
         if (jumlahHari > pegawai.sisaCuti) {
             showAlert(Alert.AlertType.ERROR, "Sisa Cuti Tidak Mencukupi",
@@ -556,10 +552,7 @@ public class EmployeeDashboard extends Application {
 
         historyTable.getColumns().addAll(keperluanCol, periodeCol, hariCol, statusCol);
 
-        ObservableList<Cuti> userCuti = DataStore.cutiList.stream()
-                .filter(c -> c.pegawaiId.equals(pegawai.id))
-                .sorted((a, b) -> b.mulai.compareTo(a.mulai))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        ObservableList<Cuti> userCuti = FXCollections.observableArrayList(DataStore.getCutiPegawai(pegawai.id));
 
         historyTable.setItems(userCuti);
         historyTable.setPrefHeight(250);
@@ -600,15 +593,16 @@ public class EmployeeDashboard extends Application {
         Label salaryTitle = new Label("Informasi Gaji Bulan Ini");
         salaryTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
-        // Calculate salary components
-        long hadirCount = DataStore.getKehadiranBulan(pegawai.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear());
+        // Calculate salary components (attendance and total from the shared payroll run)
+        PayrollRun payroll = DataStore.getDashboardSummary().getPayroll();
+        long hadirCount = payroll.getHadir(pegawai);
         long workYears = ChronoUnit.YEARS.between(
                 pegawai.tglMasuk.toInstant().atZone(ZoneId.systemDefault()).toLocalDate(),
-                LocalDate.now()
+                ClockService.today()
         );
         double experienceMultiplier = 1 + Math.min(workYears * 0.05, 0.5);
         double attendanceBonus = hadirCount * 50000;
-        double totalGaji = pegawai.calculateGajiBulanan();
+        double totalGaji = payroll.getGaji(pegawai);
 
         GridPane salaryGrid = new GridPane();
         salaryGrid.setHgap(20);
@@ -647,40 +641,12 @@ public class EmployeeDashboard extends Application {
         attendanceTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
         // Count different attendance types for current month
-        long hadirCount = DataStore.presensiList.stream()
-                .filter(p -> p.pegawaiId.equals(pegawai.id))
-                .filter(p -> {
-                    Calendar cal = Calendar.getInstance();
-                    cal.setTime(p.tanggal);
-                    return cal.get(Calendar.MONTH) + 1 == LocalDate.now().getMonthValue()
-                            && cal.get(Calendar.YEAR) == LocalDate.now().getYear();
-                })
-                .filter(p -> "Hadir".equals(p.keterangan))
-                .count();
-
-        long izinCount = DataStore.presensiList.stream()
-                .filter(p -> p.pegawaiId.equals(pegawai.id))
-                .filter(p -> {
-                    Calendar cal = Calendar.getInstance();
-                    cal.setTime(p.tanggal);
-                    return cal.get(Calendar.MONTH) + 1 == LocalDate.now().getMonthValue()
-                            && cal.get(Calendar.YEAR) == LocalDate.now().getYear();
-                })
-                .filter(p -> "Izin".equals(p.keterangan))
-                .count();
-
-        long lemburCount = DataStore.presensiList.stream()
-                .filter(p -> p.pegawaiId.equals(pegawai.id))
-                .filter(p -> {
-                    Calendar cal = Calendar.getInstance();
-                    cal.setTime(p.tanggal);
-                    return cal.get(Calendar.MONTH) + 1 == LocalDate.now().getMonthValue()
-                            && cal.get(Calendar.YEAR) == LocalDate.now().getYear();
-                })
-                .filter(p -> "Lembur".equals(p.keterangan))
-                .count();
-
-        double persentaseKehadiran = hadirCount > 0 ? (hadirCount / 22.0) * 100 : 0;
+        RekapKehadiran rekap = DataStore.getRekapKehadiran(pegawai.id, ClockService.bulanIni(), ClockService.tahunIni());
+        long hadirCount = rekap.hadir;
+        long izinCount = rekap.izin;
+        long lemburCount = rekap.lembur;
+
+        double persentaseKehadiran = KalenderKerja.persentaseKehadiran(hadirCount, ClockService.bulanIni(), ClockService.tahunIni());
 
         HBox attendanceStats = new HBox(30);
         attendanceStats.getChildren().addAll(
@@ -779,6 +745,7 @@ public class EmployeeDashboard extends Application {
 
         // Update name
         pegawai.nama = namaField.getText();
+        DataStore.updatePegawai(pegawai);
 
         // Update password if provided
         if (!oldPasswordField.getText().isEmpty()) {
@@ -798,6 +765,7 @@ public class EmployeeDashboard extends Application {
             }
 
             pegawai.password = newPasswordField.getText();
+            DataStore.updatePegawai(pegawai);
         }
 
         showAlert(Alert.AlertType.INFORMATION, "Update Berhasil", "Profil berhasil diperbarui!");
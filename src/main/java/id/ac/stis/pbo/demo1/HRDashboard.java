@@ -3,6 +3,7 @@ package id.ac.stis.pbo.demo1;
 import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -12,9 +13,15 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -35,6 +42,11 @@ import java.util.stream.Collectors;
  */
 
 public class HRDashboard extends Application {
+    private static final System.Logger LOG = System.getLogger(HRDashboard.class.getName());
+    private static final String SEMUA_DIVISI = "Semua Divisi";
+    private static final String[] NAMA_BULAN = {"Januari", "Februari", "Maret", "April", "Mei", "Juni",
+            "Juli", "Agustus", "September", "Oktober", "November", "Desember"};
+
     private final Pegawai hrStaff;
     private StackPane contentArea;
 
@@ -204,23 +216,12 @@ public class HRDashboard extends Application {
     private HBox createCompanyStatsRow() {
         HBox statsRow = new HBox(20);
 
-        long totalEmployees = DataStore.pegawaiMap.size();
-        long pendingLeaves = DataStore.cutiList.stream()
-                .filter(c -> "Pending".equals(c.status))
-                .count();
-
-        double avgAttendance = DataStore.pegawaiMap.values().stream()
-                .mapToLong(p -> DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear()))
-                .average()
-                .orElse(0.0);
-
-        double totalPayroll = DataStore.pegawaiMap.values().stream()
-                .mapToDouble(Pegawai::calculateGajiBulanan)
-                .sum();
-
-        long activeEmployees = DataStore.pegawaiMap.values().stream()
-                .filter(p -> DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear()) > 0)
-                .count();
+        DashboardSummary.Divisi summary = DataStore.getDashboardSummary().getTotal();
+        long totalEmployees = summary.jumlahPegawai;
+        long pendingLeaves = summary.cutiPending;
+        double avgAttendance = summary.getRataRataHadir();
+        double totalPayroll = summary.totalGaji;
+        long activeEmployees = summary.pegawaiAktif;
 
         statsRow.getChildren().addAll(
                 createStatCard("Total Pegawai", String.valueOf(totalEmployees), "#28a745"),
@@ -272,25 +273,21 @@ public class HRDashboard extends Application {
      */
     private HBox createAlertsRow() {
         HBox alertsRow = new HBox(20);
+        DashboardSummary.Divisi summary = DataStore.getDashboardSummary().getTotal();
 
         // Pending leaves alert
         VBox leavesAlert = createAlertCard("Cuti Pending",
-                DataStore.cutiList.stream().filter(c -> "Pending".equals(c.status)).count() + " pengajuan cuti menunggu approval",
+                summary.cutiPending + " pengajuan cuti menunggu approval",
                 "#ffc107");
 
         // Low attendance alert
-        long lowAttendanceCount = DataStore.pegawaiMap.values().stream()
-                .filter(p -> DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear()) < 15)
-                .count();
-
         VBox attendanceAlert = createAlertCard("Kehadiran Rendah",
-                lowAttendanceCount + " pegawai dengan kehadiran < 15 hari",
+                summary.kehadiranRendah + " pegawai dengan kehadiran < " + DashboardSummary.BATAS_KEHADIRAN_RENDAH + " hari",
                 "#dc3545");
 
         // Payroll alert
         VBox payrollAlert = createAlertCard("Payroll Info",
-                "Total payroll bulan ini: Rp " + String.format("%.0f",
-                        DataStore.pegawaiMap.values().stream().mapToDouble(Pegawai::calculateGajiBulanan).sum()),
+                "Total payroll bulan ini: Rp " + String.format("%.0f", summary.totalGaji),
                 "#28a745");
 
         alertsRow.getChildren().addAll(leavesAlert, attendanceAlert, payrollAlert);
@@ -494,14 +491,15 @@ public class HRDashboard extends Application {
         });
         tglMasukCol.setPrefWidth(120);
 
+        PayrollRun payroll = DataStore.getPayrollRun();
         TableColumn<Pegawai, String> gajiCol = new TableColumn<>("Gaji Bulanan");
         gajiCol.setCellValueFactory(data ->
-                new javafx.beans.property.SimpleStringProperty("Rp " + String.format("%.0f", data.getValue().calculateGajiBulanan())));
+                new javafx.beans.property.SimpleStringProperty("Rp " + String.format("%.0f", payroll.getGaji(data.getValue()))));
         gajiCol.setPrefWidth(150);
 
         employeeTable.getColumns().addAll(namaCol, emailCol, roleCol, divisiCol, jabatanCol, tglMasukCol, gajiCol);
 
-        ObservableList<Pegawai> employees = DataStore.pegawaiMap.values().stream()
+        ObservableList<Pegawai> employees = DataStore.getAllPegawai().stream()
                 .sorted((a, b) -> a.nama.compareTo(b.nama))
                 .collect(Collectors.toCollection(FXCollections::observableArrayList));
 
@@ -529,6 +527,7 @@ public class HRDashboard extends Application {
             Pegawai selected = employeeTable.getSelectionModel().getSelectedItem();
             if (selected != null) {
                 selected.password = "password123";
+                DataStore.updatePegawai(selected);
                 showAlert(Alert.AlertType.INFORMATION, "Password Reset",
                         "Password untuk " + selected.nama + " telah direset ke 'password123'");
             } else {
@@ -587,6 +586,7 @@ public class HRDashboard extends Application {
                 employee.divisi = divisiCombo.getValue();
                 employee.jabatan = jabatanField.getText();
                 employee.gajiPokok = employee.calculateGajiPokok(employee.role, employee.divisi);
+                DataStore.updatePegawai(employee);
                 return employee;
             }
             return null;
@@ -611,20 +611,21 @@ public class HRDashboard extends Application {
         Label title = new Label("Laporan Kehadiran Pegawai");
         title.setFont(Font.font("Arial", FontWeight.BOLD, 20));
 
-        // Filter controls
-        HBox filterBox = createAttendanceFilterControls();
+        // Attendance table, redrawn by the filter controls
+        VBox reportContainer = new VBox();
+        reportContainer.getChildren().add(createAttendanceReportTable(ClockService.bulanIni(), ClockService.tahunIni(), SEMUA_DIVISI));
 
-        // Attendance table
-        VBox attendanceTable = createAttendanceReportTable();
+        // Filter controls
+        HBox filterBox = createAttendanceFilterControls(reportContainer);
 
-        content.getChildren().addAll(title, filterBox, attendanceTable);
+        content.getChildren().addAll(title, filterBox, reportContainer);
         contentArea.getChildren().add(content);
     }
 
     /**
-     * Creates attendance filter controls
+     * Creates attendance filter controls; Generate Report redraws the report in reportContainer
      */
-    private HBox createAttendanceFilterControls() {
+    private HBox createAttendanceFilterControls(VBox reportContainer) {
         HBox filterBox = new HBox(15);
         filterBox.setStyle("-fx-background-color: white; -fx-background-radius: 10; -fx-padding: 15;");
         filterBox.setAlignment(Pos.CENTER_LEFT);
@@ -633,35 +634,62 @@ public class HRDashboard extends Application {
         filterLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
 
         ComboBox<String> monthCombo = new ComboBox<>();
-        monthCombo.getItems().addAll("Januari", "Februari", "Maret", "April", "Mei", "Juni",
-                "Juli", "Agustus", "September", "Oktober", "November", "Desember");
-        monthCombo.setValue("Juni"); // Current month
+        monthCombo.getItems().addAll(NAMA_BULAN);
+        monthCombo.getSelectionModel().select(ClockService.bulanIni() - 1); // Current month
+
+        ComboBox<Integer> yearCombo = new ComboBox<>();
+        for (int tahun = ClockService.tahunIni(); tahun > ClockService.tahunIni() - 5; tahun--) {
+            yearCombo.getItems().add(tahun);
+        }
+        yearCombo.setValue(ClockService.tahunIni());
 
         ComboBox<String> divisionCombo = new ComboBox<>();
-        divisionCombo.getItems().addAll("Semua Divisi", "Marketing", "HR", "Keuangan");
-        divisionCombo.setValue("Semua Divisi");
+        divisionCombo.getItems().add(SEMUA_DIVISI);
+        divisionCombo.getItems().addAll(new TreeSet<>(DataStore.countPegawaiByDivision().keySet()));
+        divisionCombo.setValue(SEMUA_DIVISI);
 
         Button generateBtn = new Button("Generate Report");
         generateBtn.setStyle("-fx-background-color: #007bff; -fx-text-fill: white; -fx-padding: 8 15; -fx-background-radius: 5;");
+        generateBtn.setOnAction(e -> reportContainer.getChildren().setAll(createAttendanceReportTable(
+                monthCombo.getSelectionModel().getSelectedIndex() + 1, yearCombo.getValue(), divisionCombo.getValue())));
 
         Button exportBtn = new Button("Export Excel");
         exportBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-padding: 8 15; -fx-background-radius: 5;");
 
-        filterBox.getChildren().addAll(filterLabel, new Label("Bulan:"), monthCombo,
-                new Label("Divisi:"), divisionCombo, generateBtn, exportBtn);
+        ProgressBar exportProgress = new ProgressBar(0);
+        exportProgress.setPrefWidth(120);
+        exportProgress.setVisible(false);
+        Label exportStatus = new Label();
+
+        exportBtn.setOnAction(e -> handleAttendanceExport(monthCombo.getSelectionModel().getSelectedIndex() + 1,
+                yearCombo.getValue(), divisionCombo.getValue(), exportProgress, exportStatus, exportBtn));
+
+        filterBox.getChildren().addAll(filterLabel, new Label("Bulan:"), monthCombo, new Label("Tahun:"), yearCombo,
+                new Label("Divisi:"), divisionCombo, generateBtn, exportBtn, exportProgress, exportStatus);
         return filterBox;
     }
 
     /**
-     * Creates attendance report table
+     * Creates the attendance report table of a month for one division (or all); the totals come
+     * from the division/month counters, the rows from the employee/month attendance index
      */
-    private VBox createAttendanceReportTable() {
+    private VBox createAttendanceReportTable(int bulan, int tahun, String divisi) {
         VBox tableSection = new VBox(15);
         tableSection.setStyle("-fx-background-color: white; -fx-background-radius: 10; -fx-padding: 20;");
 
-        Label sectionTitle = new Label("Laporan Kehadiran - " + LocalDate.now().getMonth() + " " + LocalDate.now().getYear());
+        boolean semuaDivisi = divisi == null || SEMUA_DIVISI.equals(divisi);
+        Label sectionTitle = new Label("Laporan Kehadiran - " + namaBulan(bulan) + " " + tahun
+                + (semuaDivisi ? "" : " - Divisi " + divisi));
         sectionTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
+        Collection<Pegawai> pegawaiList = semuaDivisi ? DataStore.getAllPegawai() : DataStore.getPegawaiByDivision(divisi);
+        RekapKehadiran total = DataStore.getRekapDivisi(semuaDivisi ? null : divisi, bulan, tahun);
+        double rataRata = tingkatKehadiran(total.hadir, pegawaiList.size(), bulan, tahun);
+        Label summaryLabel = new Label(String.format("%d pegawai | Hadir: %d | Izin: %d | Sakit: %d | Lembur: %d | Rata-rata kehadiran: %.1f%%",
+                pegawaiList.size(), total.hadir, total.izin, total.sakit, total.lembur, rataRata));
+        summaryLabel.setFont(Font.font("Arial", 12));
+        summaryLabel.setTextFill(Color.web("#6c757d"));
+
         TableView<Map<String, Object>> table = new TableView<>();
 
         TableColumn<Map<String, Object>, String> namaCol = new TableColumn<>("Nama");
@@ -695,8 +723,7 @@ public class HRDashboard extends Application {
         TableColumn<Map<String, Object>, String> statusCol = new TableColumn<>("Status");
         statusCol.setCellValueFactory(data -> {
             double persentase = (Double) data.getValue().get("persentase");
-            String status = persentase >= 80 ? "Baik" : persentase >= 60 ? "Cukup" : "Kurang";
-            return new javafx.beans.property.SimpleStringProperty(status);
+            return new javafx.beans.property.SimpleStringProperty(statusKehadiran(persentase));
         });
         statusCol.setPrefWidth(80);
 
@@ -704,54 +731,17 @@ public class HRDashboard extends Application {
 
         // Populate data
         ObservableList<Map<String, Object>> data = FXCollections.observableArrayList();
-        for (Pegawai p : DataStore.pegawaiMap.values()) {
+        RekapKehadiran[] rekapPegawai = DataStore.getRekapSemuaPegawai(bulan, tahun);
+        for (Pegawai p : pegawaiList) {
             Map<String, Object> row = new HashMap<>();
 
-            long hadirCount = DataStore.presensiList.stream()
-                    .filter(pr -> pr.pegawaiId.equals(p.id))
-                    .filter(pr -> {
-                        Calendar cal = Calendar.getInstance();
-                        cal.setTime(pr.tanggal);
-                        return cal.get(Calendar.MONTH) + 1 == LocalDate.now().getMonthValue()
-                                && cal.get(Calendar.YEAR) == LocalDate.now().getYear();
-                    })
-                    .filter(pr -> "Hadir".equals(pr.keterangan))
-                    .count();
-
-            long izinCount = DataStore.presensiList.stream()
-                    .filter(pr -> pr.pegawaiId.equals(p.id))
-                    .filter(pr -> {
-                        Calendar cal = Calendar.getInstance();
-                        cal.setTime(pr.tanggal);
-                        return cal.get(Calendar.MONTH) + 1 == LocalDate.now().getMonthValue()
-                                && cal.get(Calendar.YEAR) == LocalDate.now().getYear();
-                    })
-                    .filter(pr -> "Izin".equals(pr.keterangan))
-                    .count();
-
-            long sakitCount = DataStore.presensiList.stream()
-                    .filter(pr -> pr.pegawaiId.equals(p.id))
-                    .filter(pr -> {
-                        Calendar cal = Calendar.getInstance();
-                        cal.setTime(pr.tanggal);
-                        return cal.get(Calendar.MONTH) + 1 == LocalDate.now().getMonthValue()
-                                && cal.get(Calendar.YEAR) == LocalDate.now().getYear();
-                    })
-                    .filter(pr -> "Sakit".equals(pr.keterangan))
-                    .count();
-
-            long lemburCount = DataStore.presensiList.stream()
-                    .filter(pr -> pr.pegawaiId.equals(p.id))
-                    .filter(pr -> {
-                        Calendar cal = Calendar.getInstance();
-                        cal.setTime(pr.tanggal);
-                        return cal.get(Calendar.MONTH) + 1 == LocalDate.now().getMonthValue()
-                                && cal.get(Calendar.YEAR) == LocalDate.now().getYear();
-                    })
-                    .filter(pr -> "Lembur".equals(pr.keterangan))
-                    .count();
-
-            double persentase = hadirCount > 0 ? Math.round((hadirCount / 22.0) * 100 * 100.0) / 100.0 : 0;
+            RekapKehadiran rekap = rekapPegawai(rekapPegawai, p);
+            long hadirCount = rekap.hadir;
+            long izinCount = rekap.izin;
+            long sakitCount = rekap.sakit;
+            long lemburCount = rekap.lembur;
+
+            double persentase = Math.round(KalenderKerja.persentaseKehadiran(hadirCount, bulan, tahun) * 100.0) / 100.0;
 
             row.put("nama", p.nama);
             row.put("divisi", p.divisi);
@@ -765,10 +755,86 @@ public class HRDashboard extends Application {
         table.setItems(data);
         table.setPrefHeight(400);
 
-        tableSection.getChildren().addAll(sectionTitle, table);
+        tableSection.getChildren().addAll(sectionTitle, summaryLabel, table);
         return tableSection;
     }
 
+    /**
+     * Attendance rate of a month: Hadir days over employees times working days
+     */
+    private static double tingkatKehadiran(long hadir, int jumlahPegawai, int bulan, int tahun) {
+        return jumlahPegawai > 0 ? KalenderKerja.persentaseKehadiran(hadir, bulan, tahun) / jumlahPegawai : 0;
+    }
+
+    private static String namaBulan(int bulan) {
+        return NAMA_BULAN[bulan - 1];
+    }
+
+    private static String statusKehadiran(double persentase) {
+        return persentase >= 80 ? "Baik" : persentase >= 60 ? "Cukup" : "Kurang";
+    }
+
+    /**
+     * Exports the attendance report of a month to an Excel file chosen by the user on a background thread
+     */
+    private void handleAttendanceExport(int bulan, int tahun, String divisi, ProgressBar progressBar, Label statusLabel, Button... buttons) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Simpan Laporan Kehadiran");
+        chooser.setInitialFileName(String.format("kehadiran-%04d%02d%s.xlsx", tahun, bulan,
+                SEMUA_DIVISI.equals(divisi) ? "" : "-" + divisi.toLowerCase()));
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Excel", "*.xlsx"));
+        File file = chooser.showSaveDialog(contentArea.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return writeLaporanKehadiran(file.toPath(), bulan, tahun, divisi, this::updateProgress);
+            }
+        };
+        jalankanExport(task, "Laporan kehadiran", file, progressBar, statusLabel, buttons);
+    }
+
+    /**
+     * Streams the attendance report of a month (one row per employee, optionally one division)
+     * into an XLSX file; returns the number of employees written
+     */
+    static int writeLaporanKehadiran(Path file, int bulan, int tahun, String divisi, PayrollExporter.Progress progress) throws IOException {
+        Collection<Pegawai> pegawai = divisi == null || SEMUA_DIVISI.equals(divisi)
+                ? DataStore.getAllPegawai() : DataStore.getPegawaiByDivision(divisi);
+        int total = pegawai.size();
+        int count = 0;
+        RekapKehadiran[] rekapPegawai = DataStore.getRekapSemuaPegawai(bulan, tahun);
+        try (XlsxWriter xlsx = new XlsxWriter(file, String.format("Kehadiran %04d-%02d", tahun, bulan),
+                30, 30, 15, 10, 10, 10, 10, 12, 10)) {
+            xlsx.header("ID", "Nama", "Divisi", "Hadir", "Izin", "Sakit", "Lembur", "Persentase", "Status");
+            for (Pegawai p : pegawai) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Export dibatalkan");
+                }
+                RekapKehadiran rekap = rekapPegawai(rekapPegawai, p);
+                double persentase = Math.round(KalenderKerja.persentaseKehadiran(rekap.hadir, bulan, tahun) * 100.0) / 100.0;
+                xlsx.row(p.id, p.nama, p.divisi, rekap.hadir, rekap.izin, rekap.sakit, rekap.lembur,
+                        persentase, statusKehadiran(persentase));
+                if (count++ % 1024 == 0) {
+                    progress.update(count, total);
+                }
+            }
+            xlsx.commit();
+        }
+        progress.update(total, total);
+        return count;
+    }
+
+    /**
+     * Looks up an employee in the result of DataStore.getRekapSemuaPegawai; employees added since count as empty
+     */
+    private static RekapKehadiran rekapPegawai(RekapKehadiran[] rekapPegawai, Pegawai p) {
+        return p.ordinal >= 0 && p.ordinal < rekapPegawai.length ? rekapPegawai[p.ordinal] : RekapKehadiran.KOSONG;
+    }
+
     /**
      * Shows leave management content for all employees
      */
@@ -805,7 +871,7 @@ public class HRDashboard extends Application {
 
         TableColumn<Cuti, String> pegawaiCol = new TableColumn<>("Pegawai");
         pegawaiCol.setCellValueFactory(data -> {
-            Pegawai p = DataStore.getPegawai(data.getValue().pegawaiId);
+            Pegawai p = DataStore.getPegawai(data.getValue().pegawaiOrdinal);
             return new javafx.beans.property.SimpleStringProperty(p != null ? p.nama + " (" + p.divisi + ")" : data.getValue().pegawaiId);
         });
         pegawaiCol.setPrefWidth(200);
@@ -834,12 +900,10 @@ public class HRDashboard extends Application {
 
         table.getColumns().addAll(pegawaiCol, keperluanCol, periodeCol, jumlahCol, alasanCol, statusCol);
         table.setPrefHeight(300);
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         // Load all pending requests
-        ObservableList<Cuti> pendingRequests = DataStore.cutiList.stream()
-                .filter(c -> "Pending".equals(c.status))
-                .sorted((a, b) -> a.mulai.compareTo(b.mulai))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        ObservableList<Cuti> pendingRequests = FXCollections.observableArrayList(DataStore.getCutiByStatus("Pending"));
 
         table.setItems(pendingRequests);
 
@@ -864,34 +928,32 @@ public class HRDashboard extends Application {
     }
 
     /**
-     * Handles HR-level leave approval/rejection
+     * Handles HR-level leave approval/rejection of all selected requests at once
      */
     private void handleHRLeaveAction(TableView<Cuti> table, boolean approve) {
-        Cuti selected = table.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            if (approve) {
-                selected.status = "Disetujui";
-                selected.approvedBy = hrStaff.id;
-
-                // Update employee's remaining leave
-                Pegawai employee = DataStore.getPegawai(selected.pegawaiId);
-                if (employee != null) {
-                    employee.sisaCuti -= (int) selected.getJumlahHari();
-                }
+        List<Cuti> selected = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "Pilihan Tidak Valid", "Pilih pengajuan cuti yang akan diproses!");
+            return;
+        }
 
-                showAlert(Alert.AlertType.INFORMATION, "Cuti Disetujui HR",
-                        "Cuti telah disetujui oleh HR!\nPegawai: " + (employee != null ? employee.nama : "N/A") +
-                                "\nSisa cuti: " + (employee != null ? employee.sisaCuti : "N/A") + " hari");
-            } else {
-                selected.status = "Ditolak";
-                selected.approvedBy = hrStaff.id;
-                showAlert(Alert.AlertType.INFORMATION, "Cuti Ditolak HR", "Cuti telah ditolak oleh HR!");
-            }
+        try {
+            // Approval also updates the employees' remaining leave
+            DataStore.updateStatusCuti(selected, approve ? "Disetujui" : "Ditolak", hrStaff.id);
+        } catch (IllegalStateException e) {
+            showAlert(Alert.AlertType.ERROR, "Gagal Memproses Cuti", e.getMessage() + "\nTidak ada pengajuan yang diproses.");
+            return;
+        }
 
-            showLeaveManagementContent(); // Refresh
+        if (approve) {
+            long pegawai = selected.stream().map(c -> c.pegawaiOrdinal).distinct().count();
+            showAlert(Alert.AlertType.INFORMATION, "Cuti Disetujui HR",
+                    selected.size() + " pengajuan cuti dari " + pegawai + " pegawai telah disetujui oleh HR!");
         } else {
-            showAlert(Alert.AlertType.WARNING, "Pilihan Tidak Valid", "Pilih pengajuan cuti yang akan diproses!");
+            showAlert(Alert.AlertType.INFORMATION, "Cuti Ditolak HR", selected.size() + " pengajuan cuti telah ditolak oleh HR!");
         }
+
+        showLeaveManagementContent(); // Refresh
     }
 
     /**
@@ -905,12 +967,11 @@ public class HRDashboard extends Application {
         sectionTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
         // Calculate leave statistics
-        long totalPending = DataStore.cutiList.stream().filter(c -> "Pending".equals(c.status)).count();
-        long totalApproved = DataStore.cutiList.stream().filter(c -> "Disetujui".equals(c.status)).count();
-        long totalRejected = DataStore.cutiList.stream().filter(c -> "Ditolak".equals(c.status)).count();
+        long totalPending = DataStore.countCutiByStatus("Pending");
+        long totalApproved = DataStore.countCutiByStatus("Disetujui");
+        long totalRejected = DataStore.countCutiByStatus("Ditolak");
 
-        double avgLeaveDays = DataStore.cutiList.stream()
-                .filter(c -> "Disetujui".equals(c.status))
+        double avgLeaveDays = DataStore.getCutiByStatus("Disetujui").stream()
                 .mapToLong(Cuti::getJumlahHari)
                 .average()
                 .orElse(0.0);
@@ -956,15 +1017,14 @@ public class HRDashboard extends Application {
         VBox summarySection = new VBox(15);
         summarySection.setStyle("-fx-background-color: white; -fx-background-radius: 10; -fx-padding: 20;");
 
-        Label sectionTitle = new Label("Ringkasan Payroll Bulan " + LocalDate.now().getMonth() + " " + LocalDate.now().getYear());
+        Label sectionTitle = new Label("Ringkasan Payroll Bulan " + ClockService.today().getMonth() + " " + ClockService.tahunIni());
         sectionTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
-        // Calculate payroll totals by division
-        Map<String, Double> payrollByDivision = DataStore.pegawaiMap.values().stream()
-                .collect(Collectors.groupingBy(p -> p.divisi,
-                        Collectors.summingDouble(Pegawai::calculateGajiBulanan)));
+        // Payroll totals by division
+        PayrollRun payroll = DataStore.getPayrollRun();
+        Map<String, Double> payrollByDivision = payroll.getTotalPerDivisi();
 
-        double totalPayroll = payrollByDivision.values().stream().mapToDouble(Double::doubleValue).sum();
+        double totalPayroll = payroll.getTotal();
 
         HBox payrollStats = new HBox(20);
         payrollStats.getChildren().addAll(
@@ -972,7 +1032,7 @@ public class HRDashboard extends Application {
                 createStatCard("Marketing", "Rp " + String.format("%.0f", payrollByDivision.getOrDefault("Marketing", 0.0)), "#007bff"),
                 createStatCard("HR", "Rp " + String.format("%.0f", payrollByDivision.getOrDefault("HR", 0.0)), "#6f42c1"),
                 createStatCard("Keuangan", "Rp " + String.format("%.0f", payrollByDivision.getOrDefault("Keuangan", 0.0)), "#fd7e14"),
-                createStatCard("Rata-rata", "Rp " + String.format("%.0f", totalPayroll / DataStore.pegawaiMap.size()), "#17a2b8")
+                createStatCard("Rata-rata", "Rp " + String.format("%.0f", totalPayroll / Math.max(payroll.getJumlahPegawai(), 1)), "#17a2b8")
         );
 
         summarySection.getChildren().addAll(sectionTitle, payrollStats);
@@ -1021,13 +1081,14 @@ public class HRDashboard extends Application {
 
         table.getColumns().addAll(namaCol, divisiCol, jabatanCol, gajiPokokCol, bonusCol, totalCol, kehadiranCol);
 
+        PayrollRun payroll = DataStore.getPayrollRun();
         ObservableList<Map<String, Object>> data = FXCollections.observableArrayList();
-        for (Pegawai p : DataStore.pegawaiMap.values()) {
+        for (Pegawai p : DataStore.getAllPegawai()) {
             Map<String, Object> row = new HashMap<>();
 
-            long hadirCount = DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear());
+            long hadirCount = payroll.getHadir(p);
             double attendanceBonus = hadirCount * 50000;
-            double totalGaji = p.calculateGajiBulanan();
+            double totalGaji = payroll.getGaji(p);
 
             row.put("nama", p.nama);
             row.put("divisi", p.divisi);
@@ -1045,15 +1106,100 @@ public class HRDashboard extends Application {
         table.setItems(data);
         table.setPrefHeight(400);
 
-        // Export button
-        Button exportBtn = new Button("Export Payroll");
+        // Export buttons
+        Button exportBtn = new Button("Export Payroll (CSV)");
         exportBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-padding: 10 15; -fx-background-radius: 5;");
-        exportBtn.setOnAction(e -> showAlert(Alert.AlertType.INFORMATION, "Export", "Fitur export akan segera tersedia!"));
 
-        tableSection.getChildren().addAll(sectionTitle, table, exportBtn);
+        Button transferBtn = new Button("File Transfer Bank");
+        transferBtn.setStyle("-fx-background-color: #007bff; -fx-text-fill: white; -fx-padding: 10 15; -fx-background-radius: 5;");
+
+        ProgressBar exportProgress = new ProgressBar(0);
+        exportProgress.setPrefWidth(200);
+        exportProgress.setVisible(false);
+        Label exportStatus = new Label();
+
+        exportBtn.setOnAction(e -> handlePayrollExport(false, exportProgress, exportStatus, exportBtn, transferBtn));
+        transferBtn.setOnAction(e -> handlePayrollExport(true, exportProgress, exportStatus, exportBtn, transferBtn));
+
+        HBox exportBox = new HBox(10, exportBtn, transferBtn, exportProgress, exportStatus);
+        exportBox.setAlignment(Pos.CENTER_LEFT);
+
+        tableSection.getChildren().addAll(sectionTitle, table, exportBox);
         return tableSection;
     }
 
+    /**
+     * Exports the current payroll run to a file chosen by the user on a background thread
+     */
+    private void handlePayrollExport(boolean transferBank, ProgressBar progressBar, Label statusLabel, Button... buttons) {
+        String periode = String.format("%04d%02d", ClockService.tahunIni(), ClockService.bulanIni());
+        FileChooser chooser = new FileChooser();
+        if (transferBank) {
+            chooser.setTitle("Simpan File Transfer Bank");
+            chooser.setInitialFileName("transfer-gaji-" + periode + ".txt");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("File Transfer", "*.txt"));
+        } else {
+            chooser.setTitle("Simpan Payroll");
+            chooser.setInitialFileName("payroll-" + periode + ".csv");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        }
+        File file = chooser.showSaveDialog(contentArea.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                PayrollRun run = DataStore.getPayrollRun();
+                PayrollExporter.Progress progress = this::updateProgress;
+                if (transferBank) {
+                    PayrollExporter.writeTransferBank(run, ClockService.today(), file.toPath(), progress);
+                } else {
+                    PayrollExporter.writeCsv(run, file.toPath(), progress);
+                }
+                return run.getJumlahPegawai();
+            }
+        };
+        jalankanExport(task, "Payroll", file, progressBar, statusLabel, buttons);
+    }
+
+    /**
+     * Runs an export task on a daemon thread, showing its progress and disabling the export buttons meanwhile
+     */
+    private void jalankanExport(Task<Integer> task, String jenis, File file, ProgressBar progressBar, Label statusLabel, Button... buttons) {
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressBar.setVisible(true);
+        statusLabel.setText("Mengekspor...");
+        for (Button button : buttons) {
+            button.setDisable(true);
+        }
+        task.setOnSucceeded(e -> {
+            selesaiExport(progressBar, buttons);
+            statusLabel.setText(task.getValue() + " pegawai diekspor");
+            showAlert(Alert.AlertType.INFORMATION, "Export Berhasil",
+                    jenis + " " + task.getValue() + " pegawai berhasil diekspor ke:\n" + file.getAbsolutePath());
+        });
+        task.setOnFailed(e -> {
+            selesaiExport(progressBar, buttons);
+            statusLabel.setText("Export gagal");
+            LOG.log(System.Logger.Level.ERROR, "Export " + jenis + " ke " + file + " gagal", task.getException());
+            showAlert(Alert.AlertType.ERROR, "Export Gagal", "Gagal mengekspor " + jenis.toLowerCase() + ": " + task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "gawe-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void selesaiExport(ProgressBar progressBar, Button... buttons) {
+        progressBar.progressProperty().unbind();
+        progressBar.setVisible(false);
+        for (Button button : buttons) {
+            button.setDisable(false);
+        }
+    }
+
     /**
      * Shows analytics content
      */
@@ -1087,19 +1233,24 @@ public class HRDashboard extends Application {
         sectionTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
         // Calculate key metrics
-        long totalEmployees = DataStore.pegawaiMap.size();
-        Map<String, Long> employeesByDivision = DataStore.pegawaiMap.values().stream()
-                .collect(Collectors.groupingBy(p -> p.divisi, Collectors.counting()));
+        int bulan = ClockService.bulanIni(), tahun = ClockService.tahunIni();
+        long totalEmployees = DataStore.getAllPegawai().size();
+        Map<String, Long> employeesByDivision = new TreeMap<>(DataStore.countPegawaiByDivision());
+        Map<String, RekapKehadiran> kehadiranPerDivisi = DataStore.getRekapPerDivisi(bulan, tahun);
 
-        Map<String, Long> employeesByRole = DataStore.pegawaiMap.values().stream()
-                .collect(Collectors.groupingBy(p -> p.role, Collectors.counting()));
+        Map<String, Long> employeesByRole = DataStore.countPegawaiByRole();
 
         // Create overview text
         StringBuilder overview = new StringBuilder();
         overview.append("Total Pegawai: ").append(totalEmployees).append("\n\n");
-        overview.append("Distribusi per Divisi:\n");
-        employeesByDivision.forEach((divisi, count) ->
-                overview.append("• ").append(divisi).append(": ").append(count).append(" orang\n"));
+        overview.append("Distribusi per Divisi (kehadiran ").append(namaBulan(bulan)).append("):\n");
+        employeesByDivision.forEach((divisi, count) -> {
+            RekapKehadiran rekap = kehadiranPerDivisi.getOrDefault(divisi, RekapKehadiran.KOSONG);
+            overview.append("• ").append(divisi).append(": ").append(count).append(" orang, kehadiran ")
+                    .append(String.format("%.1f%%", tingkatKehadiran(rekap.hadir, count.intValue(), bulan, tahun)))
+                    .append(" (izin ").append(rekap.izin).append(", sakit ").append(rekap.sakit)
+                    .append(", lembur ").append(rekap.lembur).append(")\n");
+        });
 
         overview.append("\nDistribusi per Role:\n");
         employeesByRole.forEach((role, count) ->
@@ -1123,22 +1274,42 @@ public class HRDashboard extends Application {
         Label sectionTitle = new Label("Trends & Insights");
         sectionTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
-        // Calculate trends
-        double avgAttendanceRate = DataStore.pegawaiMap.values().stream()
-                .mapToLong(p -> DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear()))
-                .average()
-                .orElse(0.0) / 22.0 * 100;
+        // Calculate trends from the division/month aggregates, rolled up over all divisions
+        int bulan = ClockService.bulanIni(), tahun = ClockService.tahunIni();
+        int totalEmployees = DataStore.getAllPegawai().size();
+        YearMonth bulanIni = YearMonth.of(tahun, bulan);
+        SortedMap<YearMonth, RekapKehadiran> perBulan = DataStore.getRekapPerBulan(null, bulanIni.minusYears(2).withMonth(1), bulanIni);
+
+        double avgAttendanceRate = tingkatKehadiran(perBulan.get(bulanIni).hadir, totalEmployees, bulan, tahun);
 
-        long highPerformers = DataStore.pegawaiMap.values().stream()
-                .filter(p -> DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear()) >= 20)
-                .count();
+        DashboardSummary.Divisi summary = DataStore.getDashboardSummary().getTotal();
+        long highPerformers = summary.highPerformer;
 
         // Create insights text
         StringBuilder insights = new StringBuilder();
-        insights.append("📊 Key Insights untuk ").append(LocalDate.now().getMonth()).append(" ").append(LocalDate.now().getYear()).append(":\n\n");
+        insights.append("📊 Key Insights untuk ").append(namaBulan(bulan)).append(" ").append(tahun).append(":\n\n");
         insights.append("• Tingkat Kehadiran Rata-rata: ").append(String.format("%.1f%%", avgAttendanceRate)).append("\n");
-        insights.append("• High Performers (≥20 hari hadir): ").append(highPerformers).append(" pegawai\n");
-        insights.append("• Pendek Cuti: ").append(DataStore.cutiList.stream().filter(c -> "Pending".equals(c.status)).count()).append(" menunggu approval\n\n");
+        insights.append("• High Performers (≥").append(DashboardSummary.BATAS_HIGH_PERFORMER).append(" hari hadir): ").append(highPerformers).append(" pegawai\n");
+        insights.append("• Pendek Cuti: ").append(summary.cutiPending).append(" menunggu approval\n\n");
+
+        insights.append("Tren 6 bulan terakhir:\n");
+        for (YearMonth ym : perBulan.tailMap(bulanIni.minusMonths(5)).keySet()) {
+            insights.append("• ").append(namaBulan(ym.getMonthValue())).append(" ").append(ym.getYear()).append(": ")
+                    .append(String.format("%.1f%%", tingkatKehadiran(perBulan.get(ym).hadir, totalEmployees, ym.getMonthValue(), ym.getYear())))
+                    .append("\n");
+        }
+
+        insights.append("\nTren tahunan:\n");
+        Map<Integer, long[]> perTahun = new TreeMap<>(); // year -> {hadir, working days}
+        perBulan.forEach((ym, rekap) -> {
+            long[] total = perTahun.computeIfAbsent(ym.getYear(), k -> new long[2]);
+            total[0] += rekap.hadir;
+            total[1] += KalenderKerja.hariKerjaBulan(ym.getMonthValue(), ym.getYear());
+        });
+        perTahun.forEach((y, total) -> insights.append("• ").append(y).append(y == tahun ? " (s.d. " + namaBulan(bulan) + ")" : "").append(": ")
+                .append(String.format("%.1f%%", totalEmployees > 0 && total[1] > 0 ? total[0] * 100.0 / totalEmployees / total[1] : 0))
+                .append(" (").append(total[0]).append(" hari hadir)\n"));
+        insights.append("\n");
 
         if (avgAttendanceRate >= 80) {
             insights.append("✅ Kehadiran secara umum baik\n");
@@ -0,0 +1,100 @@
+package id.ac.stis.pbo.demo1;
+
+import java.util.*;
+
+/**
+ * Compact Attendance Store
+ * Keeps attendance rows in parallel primitive arrays instead of Presensi objects:
+ * employee dictionary ordinal (int), epoch day (int) and status code (byte), about 9 bytes per row.
+ */
+class HeapPresensiStore implements PresensiStore {
+    private static final int KAPASITAS_AWAL = 1024;
+
+    private int[] pegawai = new int[KAPASITAS_AWAL];
+    private int[] hari = new int[KAPASITAS_AWAL];
+    private byte[] status = new byte[KAPASITAS_AWAL];
+    private int size;
+
+    // approvedBy is almost always null, so it is kept sparse by row number
+    private final Map<Integer, String> approvedBy = new HashMap<>();
+
+    @Override
+    public int add(Presensi presensi) {
+        if (presensi.pegawaiOrdinal < 0) {
+            throw new IllegalArgumentException("Pegawai tidak dikenal: " + presensi.pegawaiId);
+        }
+        // Converted before the row is taken, so a rejected record leaves the store unchanged
+        int epochDay = PresensiStore.toEpochDay(presensi.tanggal);
+        byte kode = PresensiStore.statusCode(presensi.keterangan);
+        if (size == pegawai.length) {
+            int kapasitas = size + (size >> 1);
+            pegawai = Arrays.copyOf(pegawai, kapasitas);
+            hari = Arrays.copyOf(hari, kapasitas);
+            status = Arrays.copyOf(status, kapasitas);
+        }
+        int row = size++;
+        pegawai[row] = presensi.pegawaiOrdinal;
+        hari[row] = epochDay;
+        status[row] = kode;
+        if (presensi.approvedBy != null) {
+            approvedBy.put(row, presensi.approvedBy);
+        }
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int pegawaiOrdinal(int row) {
+        return pegawai[row];
+    }
+
+    @Override
+    public int epochDay(int row) {
+        return hari[row];
+    }
+
+    @Override
+    public byte status(int row) {
+        return status[row];
+    }
+
+    @Override
+    public String approvedBy(int row) {
+        return approvedBy.get(row);
+    }
+
+    @Override
+    public int[] pegawaiColumn() {
+        return Arrays.copyOf(pegawai, size);
+    }
+
+    @Override
+    public int[] hariColumn() {
+        return Arrays.copyOf(hari, size);
+    }
+
+    @Override
+    public byte[] statusColumn() {
+        return Arrays.copyOf(status, size);
+    }
+
+    @Override
+    public Map<Integer, String> approvedByRows() {
+        return new HashMap<>(approvedBy);
+    }
+
+    @Override
+    public void restore(int[] pegawai, int[] hari, byte[] status, Map<Integer, String> approvedBy) {
+        int kapasitas = Math.max(KAPASITAS_AWAL, pegawai.length);
+        this.pegawai = Arrays.copyOf(pegawai, kapasitas);
+        this.hari = Arrays.copyOf(hari, kapasitas);
+        this.status = Arrays.copyOf(status, kapasitas);
+        this.size = pegawai.length;
+        this.approvedBy.clear();
+        this.approvedBy.putAll(approvedBy);
+    }
+}
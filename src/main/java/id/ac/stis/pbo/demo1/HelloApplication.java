@@ -26,7 +26,22 @@ import javafx.stage.Stage;
 public class HelloApplication extends Application {
     public static void main(String[] args) {
         // Initialize data store
-        DataStore.init();
+        // --storage=jdbc [--jdbc-url=...] uses an embedded database, otherwise the journaled in-memory store
+        String storage = "journal";
+        String jdbcUrl = JdbcStorage.DEFAULT_URL;
+        for (String arg : args) {
+            if (arg.startsWith("--storage=")) {
+                storage = arg.substring("--storage=".length());
+            } else if (arg.startsWith("--jdbc-url=")) {
+                jdbcUrl = arg.substring("--jdbc-url=".length());
+            }
+        }
+
+        if ("jdbc".equalsIgnoreCase(storage)) {
+            DataStore.initJdbc(jdbcUrl);
+        } else {
+            DataStore.init();
+        }
         launch(args);
     }
 
@@ -0,0 +1,464 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * In-Memory Storage
+ * Keeps all data in memory: employees in a dictionary by ordinal, attendance rows in a
+ * PresensiStore plus sealed month segments, and an employee/month attendance index.
+ * Nothing is persisted; JournaledStorage and JdbcStorage build on it.
+ */
+class InMemoryStorage implements StorageBackend {
+    // Data collections
+    final Map<String, Pegawai> pegawaiMap = new HashMap<>();
+    PresensiStore presensiStore = PresensiStore.create();
+    final List<Rapat> rapatList = new ArrayList<>();
+    final List<Cuti> cutiList = new ArrayList<>();
+
+    // Employee dictionary: ordinal -> employee (Pegawai.ordinal is the reverse direction)
+    final List<Pegawai> pegawaiByOrdinal = new ArrayList<>();
+
+    // Attendance index: employee ordinal -> month key (see DataStore.bulanKey) -> rows and status counters
+    final List<Map<Integer, RekapKehadiran>> presensiIndex = new ArrayList<>();
+
+    // Attendance aggregates per division and month
+    final AttendanceCube attendanceCube = new AttendanceCube();
+
+    // Leave requests by division and status
+    final CutiQueues cutiQueues = new CutiQueues();
+
+    // Meeting index: division (organizer or required) -> meetings by [tanggalMulai, tanggalSelesai)
+    final Map<String, IntervalTree<Rapat>> rapatPerDivisi = new HashMap<>();
+
+    // Room bookings: room -> meetings by [tanggalMulai, tanggalSelesai)
+    final Map<String, IntervalTree<Rapat>> rapatPerRuangan = new HashMap<>();
+
+    // Memory-mapped attendance of closed months: month key -> sealed segment (presensiStore keeps the current month)
+    final Map<Integer, PresensiSegment> presensiSegments = new TreeMap<>();
+
+    // Incremented by every mutation (under the storage lock)
+    private volatile long versiData;
+
+    @Override
+    public boolean load() throws IOException {
+        return false;
+    }
+
+    @Override
+    public long getVersiData() {
+        return versiData;
+    }
+
+    /**
+     * Marks the data as changed; called by every mutation
+     */
+    void dataBerubah() {
+        versiData++;
+    }
+
+    @Override
+    public Pegawai getPegawai(String id) {
+        return pegawaiMap.get(id);
+    }
+
+    @Override
+    public Pegawai getPegawai(int ordinal) {
+        return ordinal >= 0 && ordinal < pegawaiByOrdinal.size() ? pegawaiByOrdinal.get(ordinal) : null;
+    }
+
+    int ordinalOf(String id) {
+        Pegawai pegawai = pegawaiMap.get(id);
+        return pegawai != null ? pegawai.ordinal : -1;
+    }
+
+    @Override
+    public Collection<Pegawai> getAllPegawai() {
+        return Collections.unmodifiableList(pegawaiByOrdinal);
+    }
+
+    // Attendance reads take the lock: sealing closed months rebuilds the index maps in place
+
+    @Override
+    public synchronized RekapKehadiran getRekapKehadiran(int ordinal, int bulan, int tahun) {
+        if (ordinal < 0 || ordinal >= presensiIndex.size()) {
+            return RekapKehadiran.KOSONG;
+        }
+        return presensiIndex.get(ordinal).getOrDefault(DataStore.bulanKey(bulan, tahun), RekapKehadiran.KOSONG);
+    }
+
+    @Override
+    public synchronized RekapKehadiran getRekapDivisi(String divisi, int bulan, int tahun) {
+        return attendanceCube.get(divisi, DataStore.bulanKey(bulan, tahun));
+    }
+
+    @Override
+    public synchronized Map<String, RekapKehadiran> getRekapPerDivisi(int bulan, int tahun) {
+        return attendanceCube.perDivisi(DataStore.bulanKey(bulan, tahun));
+    }
+
+    @Override
+    public synchronized SortedMap<YearMonth, RekapKehadiran> getRekapPerBulan(String divisi, YearMonth dari, YearMonth sampai) {
+        SortedMap<YearMonth, RekapKehadiran> result = new TreeMap<>();
+        attendanceCube.perBulan(divisi, DataStore.bulanKey(dari.getMonthValue(), dari.getYear()),
+                DataStore.bulanKey(sampai.getMonthValue(), sampai.getYear()))
+                .forEach((key, rekap) -> result.put(YearMonth.of(key / 12, key % 12 + 1), rekap));
+        return result;
+    }
+
+    @Override
+    public synchronized RekapKehadiran[] getRekapSemuaPegawai(int bulan, int tahun) {
+        int bulanKey = DataStore.bulanKey(bulan, tahun);
+        RekapKehadiran[] rekap = new RekapKehadiran[presensiIndex.size()];
+        for (int ordinal = 0; ordinal < rekap.length; ordinal++) {
+            rekap[ordinal] = presensiIndex.get(ordinal).getOrDefault(bulanKey, RekapKehadiran.KOSONG);
+        }
+        return rekap;
+    }
+
+    @Override
+    public synchronized long[] getKehadiranSemuaPegawai(int bulan, int tahun) {
+        int bulanKey = DataStore.bulanKey(bulan, tahun);
+        long[] hadir = new long[presensiIndex.size()];
+        for (int ordinal = 0; ordinal < hadir.length; ordinal++) {
+            hadir[ordinal] = presensiIndex.get(ordinal).getOrDefault(bulanKey, RekapKehadiran.KOSONG).hadir;
+        }
+        return hadir;
+    }
+
+    @Override
+    public synchronized List<Presensi> getPresensiBulan(Pegawai pegawai, int bulan, int tahun) {
+        return toPresensiList(getRekapKehadiran(pegawai.ordinal, bulan, tahun));
+    }
+
+    @Override
+    public synchronized List<Presensi> getPresensiPegawai(Pegawai pegawai) {
+        List<Presensi> result = new ArrayList<>();
+        if (pegawai.ordinal >= 0 && pegawai.ordinal < presensiIndex.size()) {
+            for (RekapKehadiran rekap : presensiIndex.get(pegawai.ordinal).values()) {
+                result.addAll(toPresensiList(rekap));
+            }
+        }
+        result.sort((a, b) -> b.tanggal.compareTo(a.tanggal));
+        return result;
+    }
+
+    @Override
+    public synchronized boolean adaPresensi(int ordinal, int epochDay) {
+        if (ordinal < 0 || ordinal >= presensiIndex.size()) {
+            return false;
+        }
+        RekapKehadiran rekap = presensiIndex.get(ordinal).getOrDefault(DataStore.bulanKey(epochDay), RekapKehadiran.KOSONG);
+        for (int i = 0; i < rekap.jumlah(); i++) {
+            if (rekap.epochDay(i) == epochDay) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Presensi> toPresensiList(RekapKehadiran rekap) {
+        List<Presensi> result = new ArrayList<>(rekap.jumlah());
+        for (int i = 0; i < rekap.jumlah(); i++) {
+            result.add(rekap.presensi(i));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Rapat> getAllRapat() {
+        return new ArrayList<>(rapatList);
+    }
+
+    @Override
+    public synchronized List<Rapat> getRapatDivisi(String divisi, long from, long to) {
+        IntervalTree<Rapat> index = rapatPerDivisi.get(divisi);
+        return index != null ? index.overlapping(from, to) : new ArrayList<>();
+    }
+
+    @Override
+    public synchronized List<Rapat> getRapatRuangan(String ruangan, long from, long to) {
+        IntervalTree<Rapat> index = rapatPerRuangan.get(ruangan);
+        return index != null ? index.overlapping(from, to) : new ArrayList<>();
+    }
+
+    @Override
+    public synchronized Rapat getBentrokRuangan(String ruangan, long from, long to) {
+        IntervalTree<Rapat> index = rapatPerRuangan.get(ruangan);
+        return index != null ? index.firstOverlap(from, to) : null;
+    }
+
+    @Override
+    public synchronized List<Rapat> getRapatByDivision(String divisi) {
+        List<Rapat> result = new ArrayList<>();
+        IntervalTree<Rapat> index = rapatPerDivisi.get(divisi);
+        if (index != null) {
+            index.overlapping(Long.MIN_VALUE, Long.MAX_VALUE, r -> {
+                if (r.divisi.equals(divisi)) {
+                    result.add(r);
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Cuti> getAllCuti() {
+        return new ArrayList<>(cutiList);
+    }
+
+    @Override
+    public synchronized List<Cuti> getCutiDivisi(String divisi, String status) {
+        return cutiQueues.get(divisi, status);
+    }
+
+    @Override
+    public synchronized long countCutiDivisi(String divisi, String status) {
+        return cutiQueues.jumlah(divisi, status);
+    }
+
+    @Override
+    public synchronized List<Cuti> getCutiByStatus(String status) {
+        return cutiQueues.get(status);
+    }
+
+    @Override
+    public synchronized long countCutiByStatus(String status) {
+        return cutiQueues.jumlah(status);
+    }
+
+    @Override
+    public synchronized void addPegawai(Pegawai pegawai) {
+        dataBerubah();
+        Pegawai existing = pegawaiMap.get(pegawai.id);
+        if (existing != null) {
+            pegawai.ordinal = existing.ordinal;
+            pegawaiByOrdinal.set(pegawai.ordinal, pegawai);
+        } else {
+            pegawai.ordinal = pegawaiByOrdinal.size();
+            pegawaiByOrdinal.add(pegawai);
+            presensiIndex.add(new HashMap<>());
+        }
+        pegawaiMap.put(pegawai.id, pegawai);
+        attendanceCube.pegawaiBerubah(pegawai, presensiIndex.get(pegawai.ordinal));
+    }
+
+    @Override
+    public synchronized void updatePegawai(Pegawai pegawai) {
+        dataBerubah();
+        // The object is already changed in place; only the leave queues follow a division change
+        cutiQueues.pindahDivisi(getCutiPegawai(pegawai.ordinal), pegawai.divisi);
+        attendanceCube.pegawaiBerubah(pegawai, presensiIndex.get(pegawai.ordinal));
+    }
+
+    @Override
+    public synchronized void addPresensi(Presensi presensi) {
+        periksaPresensi(presensi);
+        dataBerubah();
+        int row = presensiStore.add(presensi);
+        int bulanKey = DataStore.bulanKey(presensiStore.epochDay(row));
+        RekapKehadiran rekap = presensiIndex.get(presensi.pegawaiOrdinal)
+                .computeIfAbsent(bulanKey, k -> new RekapKehadiran(presensiStore));
+        rekap.tambah(row, presensiStore.status(row));
+        attendanceCube.tambah(pegawaiByOrdinal.get(presensi.pegawaiOrdinal), bulanKey, presensiStore.status(row));
+    }
+
+    /**
+     * Resolves the employee ordinal of an attendance record and checks that it can be stored
+     * (known employee, date, one of PresensiStore.KETERANGAN); throws IllegalArgumentException
+     * before anything is changed
+     */
+    void periksaPresensi(Presensi presensi) {
+        if (presensi.pegawaiOrdinal < 0) {
+            presensi.pegawaiOrdinal = ordinalOf(presensi.pegawaiId);
+        }
+        if (getPegawai(presensi.pegawaiOrdinal) == null) {
+            throw new IllegalArgumentException("Pegawai tidak dikenal: " + presensi.pegawaiId);
+        }
+        if (presensi.tanggal == null) {
+            throw new IllegalArgumentException("Tanggal presensi kosong");
+        }
+        PresensiStore.statusCode(presensi.keterangan);
+    }
+
+    @Override
+    public synchronized void addRapat(Rapat rapat) {
+        dataBerubah();
+        rapat.id = rapatList.size();
+        rapatList.add(rapat);
+
+        Set<String> divisiTerlibat = new HashSet<>(rapat.divisiDibutuhkan);
+        divisiTerlibat.add(rapat.divisi);
+        for (String divisi : divisiTerlibat) {
+            rapatPerDivisi.computeIfAbsent(divisi, k -> new IntervalTree<>())
+                    .add(rapat.tanggalMulai.getTime(), rapat.tanggalSelesai.getTime(), rapat);
+        }
+        if (rapat.ruangan != null) {
+            rapatPerRuangan.computeIfAbsent(rapat.ruangan, k -> new IntervalTree<>())
+                    .add(rapat.tanggalMulai.getTime(), rapat.tanggalSelesai.getTime(), rapat);
+        }
+    }
+
+    @Override
+    public synchronized void addCuti(Cuti cuti) {
+        dataBerubah();
+        if (cuti.pegawaiOrdinal < 0) {
+            cuti.pegawaiOrdinal = ordinalOf(cuti.pegawaiId);
+        }
+        cuti.id = cutiList.size();
+        cutiList.add(cuti);
+
+        Pegawai pegawai = getPegawai(cuti.pegawaiOrdinal);
+        cutiQueues.tambah(cuti, pegawai != null ? pegawai.divisi : "");
+    }
+
+    /**
+     * Not synchronized: the transition is two compare-and-sets (see terapkanStatusCuti), so approvals
+     * from several dashboards only meet on the lock for the queue bookkeeping afterwards
+     */
+    @Override
+    public void updateStatusCuti(Cuti cuti, String status, String approvedBy) {
+        periksaStatusCuti(status);
+        if (!terapkanStatusCuti(cuti, status, approvedBy)) {
+            throw new IllegalStateException("Pengajuan cuti #" + cuti.id + " sudah diproses (" + cuti.status + ")");
+        }
+    }
+
+    /**
+     * Checks the whole batch first, so either every request is processed or none is
+     */
+    @Override
+    public synchronized void updateStatusCuti(List<Cuti> daftar, String status, String approvedBy) {
+        Map<Pegawai, Integer> hariPerPegawai = periksaStatusCuti(daftar, status);
+        Set<Cuti> dipilih = Collections.newSetFromMap(new IdentityHashMap<>());
+        dipilih.addAll(daftar);
+
+        // Single approvals run without the lock, so the balances and statuses checked above are
+        // reserved with the same compare-and-sets and given back if one of them lost a race
+        List<Pegawai> dipotong = new ArrayList<>();
+        for (Map.Entry<Pegawai, Integer> entry : hariPerPegawai.entrySet()) {
+            Pegawai employee = entry.getKey();
+            if (!employee.kurangiSisaCuti(entry.getValue())) {
+                dipotong.forEach(p -> p.kembalikanSisaCuti(hariPerPegawai.get(p)));
+                throw sisaCutiKurang(employee, entry.getValue());
+            }
+            dipotong.add(employee);
+        }
+        List<Cuti> diproses = new ArrayList<>();
+        for (Cuti cuti : dipilih) {
+            if (!cuti.proses(status, approvedBy)) {
+                diproses.forEach(c -> c.batalkanProses(status));
+                dipotong.forEach(p -> p.kembalikanSisaCuti(hariPerPegawai.get(p)));
+                throw new IllegalStateException("Pengajuan cuti #" + cuti.id + " sudah diproses (" + cuti.status + ")");
+            }
+            diproses.add(cuti);
+        }
+        dataBerubah();
+        for (Cuti cuti : diproses) {
+            cutiQueues.pindahStatus(cuti, "Pending");
+        }
+    }
+
+    /**
+     * Moves a pending request to a new status; approval first deducts the employee's remaining leave
+     * and gives it back if another approval won the status. Returns false (and changes nothing) if
+     * the request was already processed; throws if the remaining leave is too low.
+     */
+    boolean terapkanStatusCuti(Cuti cuti, String status, String approvedBy) {
+        if (!"Pending".equals(cuti.status)) {
+            return false;
+        }
+        Pegawai employee = "Disetujui".equals(status) ? getPegawai(cuti.pegawaiOrdinal) : null;
+        int hari = employee != null ? (int) cuti.getJumlahHari() : 0;
+        if (employee != null && !employee.kurangiSisaCuti(hari)) {
+            throw sisaCutiKurang(employee, hari);
+        }
+        if (!cuti.proses(status, approvedBy)) {
+            if (employee != null) {
+                employee.kembalikanSisaCuti(hari);
+            }
+            return false;
+        }
+        synchronized (this) {
+            dataBerubah();
+            cutiQueues.pindahStatus(cuti, "Pending");
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the requests can move to status together (all pending, enough remaining leave)
+     * without changing anything; returns the leave days each employee loses
+     */
+    Map<Pegawai, Integer> periksaStatusCuti(Collection<Cuti> daftar, String status) {
+        periksaStatusCuti(status);
+        Set<Cuti> dilihat = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<Pegawai, Integer> hariPerPegawai = new LinkedHashMap<>();
+        for (Cuti cuti : daftar) {
+            if (!dilihat.add(cuti)) {
+                continue;
+            }
+            if (!"Pending".equals(cuti.status)) {
+                throw new IllegalStateException("Pengajuan cuti #" + cuti.id + " sudah diproses (" + cuti.status + ")");
+            }
+            Pegawai employee = getPegawai(cuti.pegawaiOrdinal);
+            if (employee == null) {
+                throw new IllegalStateException("Pegawai " + cuti.pegawaiId + " tidak ditemukan");
+            }
+            if ("Disetujui".equals(status)) {
+                hariPerPegawai.merge(employee, (int) cuti.getJumlahHari(), Integer::sum);
+            }
+        }
+        for (Map.Entry<Pegawai, Integer> entry : hariPerPegawai.entrySet()) {
+            if (entry.getValue() > entry.getKey().sisaCuti) {
+                throw sisaCutiKurang(entry.getKey(), entry.getValue());
+            }
+        }
+        return hariPerPegawai;
+    }
+
+    private static void periksaStatusCuti(String status) {
+        if (!"Disetujui".equals(status) && !"Ditolak".equals(status)) {
+            throw new IllegalArgumentException("Status cuti tidak valid: " + status);
+        }
+    }
+
+    private static IllegalStateException sisaCutiKurang(Pegawai employee, int hari) {
+        return new IllegalStateException("Sisa cuti " + employee.nama + " tidak cukup: dibutuhkan "
+                + hari + " hari, tersisa " + employee.sisaCuti + " hari");
+    }
+
+    /**
+     * Rebuilds the attendance index (and the division counters) from the month segments and the row store;
+     * called with the lock held
+     */
+    void rebuildPresensiIndex() {
+        for (Map<Integer, RekapKehadiran> perBulan : presensiIndex) {
+            perBulan.clear();
+        }
+        for (PresensiSegment segment : presensiSegments.values()) {
+            int start = 0;
+            while (start < segment.size()) {
+                int ordinal = segment.pegawaiOrdinal(start);
+                int end = start + 1;
+                while (end < segment.size() && segment.pegawaiOrdinal(end) == ordinal) {
+                    end++;
+                }
+                presensiIndex.get(ordinal).put(segment.bulanKey,
+                        new RekapKehadiran(presensiStore, segment, start, end - start));
+                start = end;
+            }
+        }
+        for (int row = 0; row < presensiStore.size(); row++) {
+            presensiIndex.get(presensiStore.pegawaiOrdinal(row))
+                    .computeIfAbsent(DataStore.bulanKey(presensiStore.epochDay(row)), k -> new RekapKehadiran(presensiStore))
+                    .tambah(row, presensiStore.status(row));
+        }
+        attendanceCube.rebuild(pegawaiByOrdinal, presensiIndex);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,153 @@
+package id.ac.stis.pbo.demo1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interval Tree
+ * AVL tree of half-open intervals [start, end) ordered by start, where every node also keeps the
+ * largest end in its subtree. Finding the k intervals that overlap a range takes O(log n + k):
+ * subtrees whose largest end lies before the range and nodes starting after it are skipped.
+ * Results come out ordered by start.
+ *
+ * Not thread-safe; the owner synchronizes access.
+ */
+class IntervalTree<T> {
+
+    private static final class Node<T> {
+        final long start, end;
+        final T value;
+        long maxEnd;
+        int height = 1;
+        Node<T> left, right;
+
+        Node(long start, long end, T value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds an interval; an empty interval is stored as one millisecond long so it can still be found
+     */
+    void add(long start, long end, T value) {
+        root = insert(root, new Node<>(start, Math.max(end, start + 1), value));
+        size++;
+    }
+
+    /**
+     * Gets the values of all intervals overlapping [from, to), ordered by start
+     */
+    List<T> overlapping(long from, long to) {
+        List<T> result = new ArrayList<>();
+        overlapping(root, from, to, result::add);
+        return result;
+    }
+
+    void overlapping(long from, long to, Consumer<T> action) {
+        overlapping(root, from, to, action);
+    }
+
+    /**
+     * Gets one interval overlapping [from, to), or null if there is none. Follows a single path
+     * from the root, so it takes O(log n): the left subtree is only entered when its largest end
+     * reaches into the range, and if it holds no overlap then nothing to the right can either.
+     */
+    T firstOverlap(long from, long to) {
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < to && node.end > from) {
+                return node.value;
+            }
+            node = node.left != null && node.left.maxEnd > from ? node.left : node.right;
+        }
+        return null;
+    }
+
+    private static <T> void overlapping(Node<T> node, long from, long to, Consumer<T> action) {
+        while (node != null && node.maxEnd > from) {
+            overlapping(node.left, from, to, action);
+            if (node.start >= to) {
+                return; // Everything further right starts even later
+            }
+            if (node.end > from) {
+                action.accept(node.value);
+            }
+            node = node.right;
+        }
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.start < node.start) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added); // Equal starts keep insertion order
+        }
+        return balance(node);
+    }
+
+    private static int height(Node<?> node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static <T> Node<T> balance(Node<T> node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
@@ -0,0 +1,600 @@
+package id.ac.stis.pbo.demo1;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC Storage
+ * Persists data in an embedded file-based database (H2 by default) through java.sql.
+ *
+ * Employees, meetings and leave requests are also kept in memory (see InMemoryStorage) so the
+ * dashboards keep working on the same objects; attendance rows only live in the database. Attendance and leave
+ * inserts are batched and written when the batch is full, before every query and once per second.
+ * Attendance lookups use indexed queries; meetings and leave requests are answered by the
+ * in-memory indexes of InMemoryStorage.
+ */
+class JdbcStorage extends InMemoryStorage {
+    static final String DEFAULT_URL = "jdbc:h2:file:./gawe-data/gawe";
+
+    private static final System.Logger LOG = System.getLogger(JdbcStorage.class.getName());
+
+    private static final int BATCH_SIZE = 256;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS pegawai (ordinal INT PRIMARY KEY, id VARCHAR(255) NOT NULL UNIQUE, "
+                    + "nama VARCHAR(255), password VARCHAR(255), role VARCHAR(32), divisi VARCHAR(64), jabatan VARCHAR(64), "
+                    + "tgl_masuk BIGINT, sisa_cuti INT, gaji_pokok DOUBLE)",
+            "CREATE INDEX IF NOT EXISTS idx_pegawai_divisi ON pegawai (divisi)",
+            "CREATE TABLE IF NOT EXISTS presensi (pegawai INT NOT NULL, hari INT NOT NULL, status TINYINT NOT NULL, "
+                    + "approved_by VARCHAR(255))",
+            "CREATE INDEX IF NOT EXISTS idx_presensi_pegawai_hari ON presensi (pegawai, hari)",
+            "CREATE TABLE IF NOT EXISTS rapat (id INT PRIMARY KEY, nama VARCHAR(255), topik VARCHAR(255), tema VARCHAR(255), "
+                    + "divisi VARCHAR(64), mulai BIGINT, selesai BIGINT, pihak_terlibat VARCHAR(1024), ruangan VARCHAR(255), "
+                    + "ringkasan VARCHAR(4096))",
+            "CREATE INDEX IF NOT EXISTS idx_rapat_mulai ON rapat (mulai)",
+            "CREATE TABLE IF NOT EXISTS rapat_divisi (rapat_id INT NOT NULL, divisi VARCHAR(64) NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS idx_rapat_divisi ON rapat_divisi (divisi, rapat_id)",
+            "CREATE TABLE IF NOT EXISTS cuti (id INT PRIMARY KEY, pegawai INT NOT NULL, mulai BIGINT, selesai BIGINT, "
+                    + "alasan VARCHAR(1024), keperluan VARCHAR(255), status VARCHAR(32), approved_by VARCHAR(255))",
+            "CREATE INDEX IF NOT EXISTS idx_cuti_status_pegawai ON cuti (status, pegawai)"
+    };
+
+    private final Connection connection;
+    private final PreparedStatement mergePegawai, insertPresensi, insertRapat, insertRapatDivisi, insertCuti,
+            updateCuti, updateSisaCuti, rekapBulan, presensiBulan, presensiPegawai, presensiHari,
+            hadirSemuaPegawai, rekapSemuaPegawai, rekapDivisi, rekapSemua, rekapPerDivisi, rekapHarianDivisi, rekapHarianSemua;
+    private int batchPresensi, batchCuti; // Rows waiting in the insert batches
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Opens (and if needed creates) the database
+     */
+    JdbcStorage(String url) throws SQLException {
+        connection = DriverManager.getConnection(url, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+        connection.setAutoCommit(false);
+
+        mergePegawai = connection.prepareStatement(
+                "MERGE INTO pegawai (ordinal, id, nama, password, role, divisi, jabatan, tgl_masuk, sisa_cuti, gaji_pokok) "
+                        + "KEY (ordinal) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        insertPresensi = connection.prepareStatement(
+                "INSERT INTO presensi (pegawai, hari, status, approved_by) VALUES (?, ?, ?, ?)");
+        insertRapat = connection.prepareStatement(
+                "INSERT INTO rapat (id, nama, topik, tema, divisi, mulai, selesai, pihak_terlibat, ruangan, ringkasan) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        insertRapatDivisi = connection.prepareStatement(
+                "INSERT INTO rapat_divisi (rapat_id, divisi) VALUES (?, ?)");
+        insertCuti = connection.prepareStatement(
+                "INSERT INTO cuti (id, pegawai, mulai, selesai, alasan, keperluan, status, approved_by) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        updateCuti = connection.prepareStatement(
+                "UPDATE cuti SET status = ?, approved_by = ? WHERE id = ?");
+        updateSisaCuti = connection.prepareStatement(
+                "UPDATE pegawai SET sisa_cuti = ? WHERE ordinal = ?");
+        rekapBulan = connection.prepareStatement(
+                "SELECT status, COUNT(*) FROM presensi WHERE pegawai = ? AND hari BETWEEN ? AND ? GROUP BY status");
+        presensiBulan = connection.prepareStatement(
+                "SELECT hari, status, approved_by FROM presensi WHERE pegawai = ? AND hari BETWEEN ? AND ? ORDER BY hari");
+        presensiPegawai = connection.prepareStatement(
+                "SELECT hari, status, approved_by FROM presensi WHERE pegawai = ? ORDER BY hari DESC");
+        presensiHari = connection.prepareStatement(
+                "SELECT 1 FROM presensi WHERE pegawai = ? AND hari = ? LIMIT 1");
+        hadirSemuaPegawai = connection.prepareStatement(
+                "SELECT pegawai, COUNT(*) FROM presensi WHERE status = ? AND hari BETWEEN ? AND ? GROUP BY pegawai");
+        rekapSemuaPegawai = connection.prepareStatement(
+                "SELECT pegawai, status, COUNT(*) FROM presensi WHERE hari BETWEEN ? AND ? GROUP BY pegawai, status");
+        rekapDivisi = connection.prepareStatement(
+                "SELECT pr.status, COUNT(*) FROM presensi pr JOIN pegawai p ON p.ordinal = pr.pegawai "
+                        + "WHERE p.divisi = ? AND pr.hari BETWEEN ? AND ? GROUP BY pr.status");
+        rekapSemua = connection.prepareStatement(
+                "SELECT status, COUNT(*) FROM presensi WHERE hari BETWEEN ? AND ? GROUP BY status");
+        rekapPerDivisi = connection.prepareStatement(
+                "SELECT p.divisi, pr.status, COUNT(*) FROM presensi pr JOIN pegawai p ON p.ordinal = pr.pegawai "
+                        + "WHERE pr.hari BETWEEN ? AND ? GROUP BY p.divisi, pr.status");
+        rekapHarianDivisi = connection.prepareStatement(
+                "SELECT pr.hari, pr.status, COUNT(*) FROM presensi pr JOIN pegawai p ON p.ordinal = pr.pegawai "
+                        + "WHERE p.divisi = ? AND pr.hari BETWEEN ? AND ? GROUP BY pr.hari, pr.status");
+        rekapHarianSemua = connection.prepareStatement(
+                "SELECT hari, status, COUNT(*) FROM presensi WHERE hari BETWEEN ? AND ? GROUP BY hari, status");
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gawe-jdbc-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (IllegalStateException e) {
+                LOG.log(System.Logger.Level.ERROR, "Batch presensi/cuti gagal ditulis ke database", e);
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Loads employees, meetings and leave requests into memory; returns false if the database is empty
+     */
+    @Override
+    public synchronized boolean load() {
+        try (Statement statement = connection.createStatement()) {
+            boolean ada = false;
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT id, nama, password, role, divisi, jabatan, tgl_masuk, sisa_cuti, gaji_pokok FROM pegawai ORDER BY ordinal")) {
+                while (rs.next()) {
+                    Pegawai p = new Pegawai(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), rs.getString(6), new Date(rs.getLong(7)));
+                    p.sisaCuti = rs.getInt(8);
+                    p.gajiPokok = rs.getDouble(9);
+                    super.addPegawai(p);
+                    ada = true;
+                }
+            }
+
+            Map<Integer, List<String>> divisiRapat = new HashMap<>();
+            try (ResultSet rs = statement.executeQuery("SELECT rapat_id, divisi FROM rapat_divisi")) {
+                while (rs.next()) {
+                    divisiRapat.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT id, nama, topik, tema, divisi, mulai, selesai, pihak_terlibat, ruangan, ringkasan FROM rapat ORDER BY id")) {
+                while (rs.next()) {
+                    Rapat r = new Rapat(rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                            new Date(rs.getLong(6)), new Date(rs.getLong(7)), rs.getString(8), rs.getString(9));
+                    r.ringkasan = rs.getString(10);
+                    r.divisiDibutuhkan.addAll(divisiRapat.getOrDefault(rs.getInt(1), Collections.emptyList()));
+                    super.addRapat(r);
+                }
+            }
+
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT c.id, p.id, c.mulai, c.selesai, c.alasan, c.keperluan, c.status, c.approved_by "
+                            + "FROM cuti c JOIN pegawai p ON p.ordinal = c.pegawai ORDER BY c.id")) {
+                while (rs.next()) {
+                    Cuti c = new Cuti(rs.getString(2), new Date(rs.getLong(3)), new Date(rs.getLong(4)),
+                            rs.getString(5), rs.getString(6));
+                    c.status = rs.getString(7);
+                    c.approvedBy = rs.getString(8);
+                    super.addCuti(c);
+                }
+            }
+            connection.commit();
+            return ada;
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    // Writes: applied in memory, then stored
+
+    @Override
+    public synchronized void addPegawai(Pegawai pegawai) {
+        super.addPegawai(pegawai);
+        simpanPegawai(pegawai);
+    }
+
+    @Override
+    public synchronized void updatePegawai(Pegawai pegawai) {
+        super.updatePegawai(pegawai);
+        simpanPegawai(pegawai);
+    }
+
+    @Override
+    public synchronized void addPresensi(Presensi presensi) {
+        periksaPresensi(presensi);
+        tambahPresensi(presensi);
+        dataBerubah();
+    }
+
+    @Override
+    public synchronized void addRapat(Rapat rapat) {
+        super.addRapat(rapat);
+        tambahRapat(rapat, rapat.id);
+    }
+
+    @Override
+    public synchronized void addCuti(Cuti cuti) {
+        super.addCuti(cuti);
+        tambahCuti(cuti);
+    }
+
+    @Override
+    public synchronized void updateStatusCuti(Cuti cuti, String status, String approvedBy) {
+        ubahStatusCuti(List.of(cuti), status, approvedBy);
+        super.updateStatusCuti(cuti, status, approvedBy);
+    }
+
+    @Override
+    public synchronized void updateStatusCuti(List<Cuti> daftar, String status, String approvedBy) {
+        ubahStatusCuti(daftar, status, approvedBy);
+        super.updateStatusCuti(daftar, status, approvedBy);
+    }
+
+    private void simpanPegawai(Pegawai p) {
+        try {
+            mergePegawai.setInt(1, p.ordinal);
+            mergePegawai.setString(2, p.id);
+            mergePegawai.setString(3, p.nama);
+            mergePegawai.setString(4, p.password);
+            mergePegawai.setString(5, p.role);
+            mergePegawai.setString(6, p.divisi);
+            mergePegawai.setString(7, p.jabatan);
+            mergePegawai.setLong(8, p.tglMasuk.getTime());
+            mergePegawai.setInt(9, p.sisaCuti);
+            mergePegawai.setDouble(10, p.gajiPokok);
+            mergePegawai.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    private void tambahPresensi(Presensi p) {
+        try {
+            insertPresensi.setInt(1, p.pegawaiOrdinal);
+            insertPresensi.setInt(2, PresensiStore.toEpochDay(p.tanggal));
+            insertPresensi.setByte(3, PresensiStore.statusCode(p.keterangan));
+            insertPresensi.setString(4, p.approvedBy);
+            insertPresensi.addBatch();
+            if (++batchPresensi >= BATCH_SIZE) {
+                flush();
+            }
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    private void tambahRapat(Rapat r, int id) {
+        try {
+            flush();
+            insertRapat.setInt(1, id);
+            insertRapat.setString(2, r.namaRapat);
+            insertRapat.setString(3, r.topik);
+            insertRapat.setString(4, r.tema);
+            insertRapat.setString(5, r.divisi);
+            insertRapat.setLong(6, r.tanggalMulai.getTime());
+            insertRapat.setLong(7, r.tanggalSelesai.getTime());
+            insertRapat.setString(8, r.pihakTerlibat);
+            insertRapat.setString(9, r.ruangan);
+            insertRapat.setString(10, r.ringkasan);
+            insertRapat.executeUpdate();
+            for (String divisi : r.divisiDibutuhkan) {
+                insertRapatDivisi.setInt(1, id);
+                insertRapatDivisi.setString(2, divisi);
+                insertRapatDivisi.addBatch();
+            }
+            insertRapatDivisi.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    private void tambahCuti(Cuti c) {
+        try {
+            insertCuti.setInt(1, c.id);
+            insertCuti.setInt(2, c.pegawaiOrdinal);
+            insertCuti.setLong(3, c.mulai.getTime());
+            insertCuti.setLong(4, c.selesai.getTime());
+            insertCuti.setString(5, c.alasan);
+            insertCuti.setString(6, c.keperluan);
+            insertCuti.setString(7, c.status);
+            insertCuti.setString(8, c.approvedBy);
+            insertCuti.addBatch();
+            if (++batchCuti >= BATCH_SIZE) {
+                flush();
+            }
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Checks the requests and commits their new status and the deducted balances in one transaction
+     * before memory is touched, so a failed statement leaves both sides unchanged. Every change goes
+     * through this lock, so the checks still hold when memory is updated afterwards.
+     */
+    private void ubahStatusCuti(List<Cuti> daftar, String status, String approvedBy) {
+        Map<Pegawai, Integer> hariPerPegawai = periksaStatusCuti(daftar, status);
+        try {
+            flush();
+            for (Cuti c : daftar) {
+                updateCuti.setString(1, status);
+                updateCuti.setString(2, approvedBy);
+                updateCuti.setInt(3, c.id);
+                updateCuti.addBatch();
+            }
+            updateCuti.executeBatch();
+            for (Map.Entry<Pegawai, Integer> entry : hariPerPegawai.entrySet()) {
+                updateSisaCuti.setInt(1, entry.getKey().sisaCuti - entry.getValue());
+                updateSisaCuti.setInt(2, entry.getKey().ordinal);
+                updateSisaCuti.addBatch();
+            }
+            updateSisaCuti.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Executes the pending insert batches in one transaction
+     */
+    synchronized void flush() {
+        if (batchPresensi == 0 && batchCuti == 0) {
+            return;
+        }
+        try {
+            if (batchPresensi > 0) {
+                insertPresensi.executeBatch();
+                batchPresensi = 0;
+            }
+            if (batchCuti > 0) {
+                insertCuti.executeBatch();
+                batchCuti = 0;
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    // Indexed queries
+
+    /**
+     * Counts the attendance statuses of an employee in a month
+     */
+    @Override
+    public synchronized RekapKehadiran getRekapKehadiran(int ordinal, int bulan, int tahun) {
+        if (getPegawai(ordinal) == null) {
+            return RekapKehadiran.KOSONG;
+        }
+        flush();
+        LocalDate awal = LocalDate.of(tahun, bulan, 1);
+        try {
+            rekapBulan.setInt(1, ordinal);
+            rekapBulan.setInt(2, (int) awal.toEpochDay());
+            rekapBulan.setInt(3, (int) awal.plusMonths(1).minusDays(1).toEpochDay());
+            return toRekap(rekapBulan);
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Counts the attendance statuses of a division's current employees (or everyone) in a month
+     */
+    @Override
+    public synchronized RekapKehadiran getRekapDivisi(String divisi, int bulan, int tahun) {
+        flush();
+        LocalDate awal = LocalDate.of(tahun, bulan, 1);
+        int dari = (int) awal.toEpochDay(), sampai = (int) awal.plusMonths(1).minusDays(1).toEpochDay();
+        try {
+            if (divisi == null) {
+                rekapSemua.setInt(1, dari);
+                rekapSemua.setInt(2, sampai);
+                return toRekap(rekapSemua);
+            }
+            rekapDivisi.setString(1, divisi);
+            rekapDivisi.setInt(2, dari);
+            rekapDivisi.setInt(3, sampai);
+            return toRekap(rekapDivisi);
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Counts the attendance statuses per division in a month with a single grouped query
+     */
+    @Override
+    public synchronized Map<String, RekapKehadiran> getRekapPerDivisi(int bulan, int tahun) {
+        flush();
+        LocalDate awal = LocalDate.of(tahun, bulan, 1);
+        Map<String, RekapKehadiran> result = new TreeMap<>();
+        for (String divisi : countPegawaiByDivision().keySet()) {
+            result.put(divisi, RekapKehadiran.hitungan(0, 0, 0, 0));
+        }
+        try {
+            rekapPerDivisi.setInt(1, (int) awal.toEpochDay());
+            rekapPerDivisi.setInt(2, (int) awal.plusMonths(1).minusDays(1).toEpochDay());
+            try (ResultSet rs = rekapPerDivisi.executeQuery()) {
+                while (rs.next()) {
+                    RekapKehadiran rekap = result.computeIfAbsent(rs.getString(1), k -> RekapKehadiran.hitungan(0, 0, 0, 0));
+                    tambahHitungan(rekap, rs.getByte(2), rs.getInt(3));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Counts the attendance statuses of a division (or everyone) per month with a single query grouped by day
+     */
+    @Override
+    public synchronized SortedMap<YearMonth, RekapKehadiran> getRekapPerBulan(String divisi, YearMonth dari, YearMonth sampai) {
+        flush();
+        SortedMap<YearMonth, RekapKehadiran> result = new TreeMap<>();
+        for (YearMonth bulan = dari; !bulan.isAfter(sampai); bulan = bulan.plusMonths(1)) {
+            result.put(bulan, RekapKehadiran.hitungan(0, 0, 0, 0));
+        }
+        int kolom = 1;
+        PreparedStatement query = divisi != null ? rekapHarianDivisi : rekapHarianSemua;
+        try {
+            if (divisi != null) {
+                query.setString(kolom++, divisi);
+            }
+            query.setInt(kolom++, (int) dari.atDay(1).toEpochDay());
+            query.setInt(kolom, (int) sampai.atEndOfMonth().toEpochDay());
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    RekapKehadiran rekap = result.get(YearMonth.from(LocalDate.ofEpochDay(rs.getInt(1))));
+                    tambahHitungan(rekap, rs.getByte(2), rs.getInt(3));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    private static void tambahHitungan(RekapKehadiran rekap, byte status, int jumlah) {
+        rekap.tambahHitungan(RekapKehadiran.hitungan(status == PresensiStore.HADIR ? jumlah : 0,
+                status == PresensiStore.IZIN ? jumlah : 0, status == PresensiStore.SAKIT ? jumlah : 0,
+                status == PresensiStore.LEMBUR ? jumlah : 0), 1);
+    }
+
+    private static RekapKehadiran toRekap(PreparedStatement query) throws SQLException {
+        int[] jumlah = new int[PresensiStore.KETERANGAN.length];
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                jumlah[rs.getByte(1)] = rs.getInt(2);
+            }
+        }
+        return RekapKehadiran.hitungan(jumlah[PresensiStore.HADIR], jumlah[PresensiStore.IZIN],
+                jumlah[PresensiStore.SAKIT], jumlah[PresensiStore.LEMBUR]);
+    }
+
+    @Override
+    public synchronized List<Presensi> getPresensiBulan(Pegawai pegawai, int bulan, int tahun) {
+        flush();
+        LocalDate awal = LocalDate.of(tahun, bulan, 1);
+        try {
+            presensiBulan.setInt(1, pegawai.ordinal);
+            presensiBulan.setInt(2, (int) awal.toEpochDay());
+            presensiBulan.setInt(3, (int) awal.plusMonths(1).minusDays(1).toEpochDay());
+            return toPresensiList(pegawai, presensiBulan);
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Gets all attendance records of an employee, newest first
+     */
+    @Override
+    public synchronized List<Presensi> getPresensiPegawai(Pegawai pegawai) {
+        flush();
+        try {
+            presensiPegawai.setInt(1, pegawai.ordinal);
+            return toPresensiList(pegawai, presensiPegawai);
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean adaPresensi(int ordinal, int epochDay) {
+        flush();
+        try {
+            presensiHari.setInt(1, ordinal);
+            presensiHari.setInt(2, epochDay);
+            try (ResultSet rs = presensiHari.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Counts the Hadir records of all employees in a month with a single grouped query
+     */
+    @Override
+    public synchronized long[] getKehadiranSemuaPegawai(int bulan, int tahun) {
+        flush();
+        LocalDate awal = LocalDate.of(tahun, bulan, 1);
+        long[] hadir = new long[pegawaiByOrdinal.size()];
+        try {
+            hadirSemuaPegawai.setByte(1, PresensiStore.HADIR);
+            hadirSemuaPegawai.setInt(2, (int) awal.toEpochDay());
+            hadirSemuaPegawai.setInt(3, (int) awal.plusMonths(1).minusDays(1).toEpochDay());
+            try (ResultSet rs = hadirSemuaPegawai.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getInt(1) < hadir.length) {
+                        hadir[rs.getInt(1)] = rs.getLong(2);
+                    }
+                }
+            }
+            return hadir;
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    /**
+     * Counts the attendance statuses of all employees in a month with a single grouped query
+     */
+    @Override
+    public synchronized RekapKehadiran[] getRekapSemuaPegawai(int bulan, int tahun) {
+        flush();
+        LocalDate awal = LocalDate.of(tahun, bulan, 1);
+        RekapKehadiran[] rekap = new RekapKehadiran[pegawaiByOrdinal.size()];
+        try {
+            rekapSemuaPegawai.setInt(1, (int) awal.toEpochDay());
+            rekapSemuaPegawai.setInt(2, (int) awal.plusMonths(1).minusDays(1).toEpochDay());
+            try (ResultSet rs = rekapSemuaPegawai.executeQuery()) {
+                while (rs.next()) {
+                    int ordinal = rs.getInt(1);
+                    if (ordinal < rekap.length) {
+                        if (rekap[ordinal] == null) {
+                            rekap[ordinal] = RekapKehadiran.hitungan(0, 0, 0, 0);
+                        }
+                        tambahHitungan(rekap[ordinal], rs.getByte(2), rs.getInt(3));
+                    }
+                }
+            }
+            for (int ordinal = 0; ordinal < rekap.length; ordinal++) {
+                if (rekap[ordinal] == null) {
+                    rekap[ordinal] = RekapKehadiran.KOSONG;
+                }
+            }
+            return rekap;
+        } catch (SQLException e) {
+            throw gagal(e);
+        }
+    }
+
+    private static List<Presensi> toPresensiList(Pegawai pegawai, PreparedStatement query) throws SQLException {
+        List<Presensi> result = new ArrayList<>();
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                Presensi p = new Presensi(pegawai.id, PresensiStore.toDate(rs.getInt(1)), PresensiStore.KETERANGAN[rs.getByte(2)]);
+                p.approvedBy = rs.getString(3);
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void close() {
+        flusher.shutdownNow();
+        try {
+            flush();
+            connection.close();
+        } catch (SQLException e) {
+            LOG.log(System.Logger.Level.ERROR, "Database gagal ditutup", e);
+        }
+    }
+
+    private static IllegalStateException gagal(SQLException e) {
+        return new IllegalStateException("Operasi database gagal: " + e.getMessage(), e);
+    }
+}
@@ -0,0 +1,410 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only Write-Ahead Journal
+ * Records every DataStore mutation in a binary log that is replayed on startup.
+ *
+ * Record layout: [int length][byte type][payload][int crc32 of type + payload].
+ * Strings in the payload are written as [int byte length, -1 for null][UTF-8 bytes].
+ * Appends only copy the record into a shared buffer; a background writer thread
+ * writes the buffer and fsyncs it once per batch (group commit), either when
+ * fsyncBatch records are waiting or when fsyncIntervalMillis has passed.
+ *
+ * The journal is split into numbered segment files (journal-000001.log, ...); a new segment is
+ * started on every startup and every snapshot, so segments covered by a snapshot can be deleted.
+ */
+class Journal implements Closeable {
+    private static final System.Logger LOG = System.getLogger(Journal.class.getName());
+
+    // Record types
+    static final byte PEGAWAI_ADD = 1;
+    static final byte PEGAWAI_UPDATE = 2;
+    static final byte PRESENSI_ADD = 3;
+    static final byte RAPAT_ADD = 4;
+    static final byte CUTI_ADD = 5;
+    static final byte CUTI_STATUS = 6;
+    static final byte CUTI_STATUS_BATCH = 7;
+
+    /**
+     * Writes the payload of a record
+     */
+    interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Receives records during replay
+     */
+    interface RecordHandler {
+        void handle(byte type, DataInputStream in) throws IOException;
+    }
+
+    private final FileChannel channel;
+    private final int fsyncBatch;
+    private final long fsyncIntervalMillis;
+    private final Thread writer;
+
+    // Guarded by this
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+    private int bufferedRecords;
+    private long appendedSeq, durableSeq;
+    private boolean flushRequested, closed;
+    private IOException failure;
+
+    /**
+     * Opens a journal for appending, cutting off a torn record at the end if any
+     */
+    Journal(Path file, long validLength, int fsyncBatch, long fsyncIntervalMillis) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.truncate(validLength);
+        this.channel.position(validLength);
+        this.fsyncBatch = Math.max(1, fsyncBatch);
+        this.fsyncIntervalMillis = Math.max(1, fsyncIntervalMillis);
+        this.writer = new Thread(this::runWriter, "gawe-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Appends a record; it becomes durable with the next group commit
+     */
+    void append(byte type, RecordBody body) {
+        byte[] record;
+        try {
+            record = encode(type, body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw new UncheckedIOException("Journal tidak dapat ditulis", failure);
+            }
+            if (closed) {
+                throw new IllegalStateException("Journal sudah ditutup");
+            }
+            buffer.write(record, 0, record.length);
+            bufferedRecords++;
+            appendedSeq++;
+            if (bufferedRecords >= fsyncBatch) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Number of records appended to this segment
+     */
+    synchronized long appendedCount() {
+        return appendedSeq;
+    }
+
+    /**
+     * Blocks until every record appended so far has been fsynced
+     */
+    synchronized void flush() {
+        long target = appendedSeq;
+        flushRequested = true;
+        notifyAll();
+        while (durableSeq < target && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void runWriter() {
+        while (true) {
+            byte[] batch;
+            long batchSeq;
+            synchronized (this) {
+                long deadline = System.currentTimeMillis() + fsyncIntervalMillis;
+                while (!closed && !flushRequested && bufferedRecords < fsyncBatch) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                flushRequested = false;
+                if (bufferedRecords == 0) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = buffer.toByteArray();
+                buffer = new ByteArrayOutputStream(64 * 1024);
+                bufferedRecords = 0;
+                batchSeq = appendedSeq;
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer data = ByteBuffer.wrap(batch);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                    LOG.log(System.Logger.Level.ERROR, "Gagal menulis journal", error);
+                } else {
+                    durableSeq = batchSeq;
+                }
+                notifyAll();
+                if (failure != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(byte type, RecordBody body) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(type);
+        body.write(out);
+        out.flush();
+        byte[] data = payload.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ByteBuffer record = ByteBuffer.allocate(4 + data.length + 4);
+        record.putInt(data.length);
+        record.put(data);
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Replays every complete record of a journal file and returns the number of records replayed.
+     * Reading stops at the first torn or corrupted record (e.g. after a crash mid-write); the file
+     * is truncated there, so later appends never follow the damaged bytes.
+     */
+    static long replay(Path file, RecordHandler handler) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long size = Files.size(file);
+        long valid = 0;
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > size - valid - 8) {
+                    break;
+                }
+                byte[] data = new byte[length];
+                int checksum;
+                try {
+                    in.readFully(data);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(data, 1, length - 1));
+                handler.handle(data[0], record);
+                records++;
+                valid += 4 + length + 4;
+            }
+        }
+        if (valid < size) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Gets the file of a journal segment
+     */
+    static Path segmentFile(Path dir, long segment) {
+        return dir.resolve(String.format("journal-%06d.log", segment));
+    }
+
+    /**
+     * Lists the segment numbers present in a directory, in ascending order
+     */
+    static List<Long> listSegments(Path dir) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())));
+                } catch (NumberFormatException e) {
+                    // Not a segment file
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    // Entity encoding, shared by append, replay and snapshots
+
+    static void writePegawai(DataOutputStream out, Pegawai p) throws IOException {
+        writeString(out, p.id);
+        writeString(out, p.nama);
+        writeString(out, p.password);
+        writeString(out, p.role);
+        writeString(out, p.divisi);
+        writeString(out, p.jabatan);
+        out.writeLong(p.tglMasuk.getTime());
+        out.writeInt(p.sisaCuti);
+        out.writeDouble(p.gajiPokok);
+    }
+
+    static Pegawai readPegawai(DataInputStream in) throws IOException {
+        Pegawai p = new Pegawai(readString(in), readString(in), readString(in),
+                readString(in), readString(in), readString(in), new Date(in.readLong()));
+        p.sisaCuti = in.readInt();
+        p.gajiPokok = in.readDouble();
+        return p;
+    }
+
+    static void writePresensi(DataOutputStream out, Presensi p) throws IOException {
+        writeString(out, p.pegawaiId);
+        out.writeLong(p.tanggal.getTime());
+        writeString(out, p.keterangan);
+        writeString(out, p.approvedBy);
+    }
+
+    static Presensi readPresensi(DataInputStream in) throws IOException {
+        Presensi p = new Presensi(readString(in), new Date(in.readLong()), readString(in));
+        p.approvedBy = readString(in);
+        return p;
+    }
+
+    static void writeRapat(DataOutputStream out, Rapat r) throws IOException {
+        writeString(out, r.namaRapat);
+        writeString(out, r.topik);
+        writeString(out, r.tema);
+        writeString(out, r.divisi);
+        out.writeLong(r.tanggalMulai.getTime());
+        out.writeLong(r.tanggalSelesai.getTime());
+        writeString(out, r.pihakTerlibat);
+        writeString(out, r.ruangan);
+        writeString(out, r.ringkasan);
+        out.writeInt(r.divisiDibutuhkan.size());
+        for (String divisi : r.divisiDibutuhkan) {
+            writeString(out, divisi);
+        }
+    }
+
+    static Rapat readRapat(DataInputStream in) throws IOException {
+        Rapat r = new Rapat(readString(in), readString(in), readString(in), readString(in),
+                new Date(in.readLong()), new Date(in.readLong()), readString(in), readString(in));
+        r.ringkasan = readString(in);
+        int jumlahDivisi = in.readInt();
+        List<String> divisi = new ArrayList<>(jumlahDivisi);
+        for (int i = 0; i < jumlahDivisi; i++) {
+            divisi.add(readString(in));
+        }
+        r.divisiDibutuhkan.addAll(divisi);
+        return r;
+    }
+
+    static void writeCuti(DataOutputStream out, Cuti c) throws IOException {
+        writeString(out, c.pegawaiId);
+        out.writeLong(c.mulai.getTime());
+        out.writeLong(c.selesai.getTime());
+        writeString(out, c.alasan);
+        writeString(out, c.keperluan);
+        writeString(out, c.status);
+        writeString(out, c.approvedBy);
+    }
+
+    static Cuti readCuti(DataInputStream in) throws IOException {
+        Cuti c = new Cuti(readString(in), new Date(in.readLong()), new Date(in.readLong()),
+                readString(in), readString(in));
+        c.status = readString(in);
+        c.approvedBy = readString(in);
+        return c;
+    }
+
+    /**
+     * Writes a string of any length, or null, as [int byte length, -1 for null][UTF-8 bytes]
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString
+     */
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
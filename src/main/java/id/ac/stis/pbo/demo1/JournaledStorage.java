@@ -0,0 +1,392 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journaled Storage
+ * In-memory storage persisted in a data directory: every mutation is appended to a write-ahead
+ * journal, a snapshot is written periodically (after which covered journal segments are deleted),
+ * and closed attendance months are sealed into memory-mapped segment files.
+ *
+ * Configuration (system properties):
+ * - gawe.journal.fsyncBatch: records per group commit (default 256)
+ * - gawe.journal.fsyncMillis: maximum delay before a group commit (default 20)
+ * - gawe.snapshot.intervalMinutes: minutes between snapshots (default 10)
+ */
+class JournaledStorage extends InMemoryStorage {
+    private static final System.Logger LOG = System.getLogger(JournaledStorage.class.getName());
+
+    private final Path dataDir;
+
+    // Write-ahead journal of all mutations, null while loading or after close
+    private Journal journal;
+
+    // Current journal segment and last segment covered by the snapshot
+    private long currentSegment;
+    private long snapshotSegment = -1;
+    private boolean tailNotSnapshotted;
+    private ScheduledExecutorService snapshotScheduler;
+    private final Object snapshotLock = new Object();
+
+    long replayedRecords;
+
+    JournaledStorage(Path dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    /**
+     * Loads the latest snapshot plus the journal tail and opens a new journal segment
+     */
+    @Override
+    public boolean load() throws IOException {
+        Files.createDirectories(dataDir);
+        snapshotSegment = Snapshot.load(dataDir.resolve(Snapshot.FILE_NAME), this);
+
+        replayedRecords = 0;
+        currentSegment = Math.max(snapshotSegment, 0);
+        for (long segment : Journal.listSegments(dataDir)) {
+            if (segment > snapshotSegment) {
+                Path file = Journal.segmentFile(dataDir, segment);
+                long records = Journal.replay(file, this::applyJournalRecord);
+                replayedRecords += records;
+                if (records == 0) {
+                    Files.delete(file); // Empty segment of a run without changes
+                }
+            }
+            currentSegment = Math.max(currentSegment, segment);
+        }
+
+        tailNotSnapshotted = replayedRecords > 0;
+        currentSegment++;
+        journal = openJournal(currentSegment);
+
+        if (hasClosedMonthsInStore()) {
+            snapshot(); // Seals the months that ended since the last run
+        }
+
+        LOG.log(System.Logger.Level.INFO, "Journal: {0} baris presensi bulan berjalan, {1} bulan tersegel, {2} record di-replay",
+                presensiStore.size(), presensiSegments.size(), replayedRecords);
+
+        long interval = Long.getLong("gawe.snapshot.intervalMinutes", 10L);
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gawe-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Snapshot terjadwal gagal", e);
+            }
+        }, interval, interval, TimeUnit.MINUTES);
+
+        // Seals the previous month as soon as a new month starts
+        ClockService.addMidnightListener(() -> {
+            if (ClockService.todayEpochDay() == ClockService.monthStartEpochDay()) {
+                snapshotScheduler.execute(() -> {
+                    try {
+                        snapshot();
+                    } catch (IOException e) {
+                        LOG.log(System.Logger.Level.ERROR, "Snapshot awal bulan gagal", e);
+                    }
+                });
+            }
+        });
+
+        return snapshotSegment >= 0 || replayedRecords > 0;
+    }
+
+    private Journal openJournal(long segment) throws IOException {
+        return new Journal(Journal.segmentFile(dataDir, segment), 0,
+                Integer.getInteger("gawe.journal.fsyncBatch", 256),
+                Long.getLong("gawe.journal.fsyncMillis", 20L));
+    }
+
+    /**
+     * Applies one journal record during replay
+     */
+    private void applyJournalRecord(byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case Journal.PEGAWAI_ADD:
+                addPegawai(Journal.readPegawai(in));
+                break;
+            case Journal.PEGAWAI_UPDATE:
+                Pegawai changed = Journal.readPegawai(in);
+                Pegawai existing = getPegawai(changed.id);
+                if (existing != null) {
+                    existing.nama = changed.nama;
+                    existing.password = changed.password;
+                    existing.role = changed.role;
+                    existing.divisi = changed.divisi;
+                    existing.jabatan = changed.jabatan;
+                    existing.sisaCuti = changed.sisaCuti;
+                    existing.gajiPokok = changed.gajiPokok;
+                    updatePegawai(existing);
+                }
+                break;
+            case Journal.PRESENSI_ADD:
+                addPresensi(Journal.readPresensi(in));
+                break;
+            case Journal.RAPAT_ADD:
+                addRapat(Journal.readRapat(in));
+                break;
+            case Journal.CUTI_ADD:
+                addCuti(Journal.readCuti(in));
+                break;
+            case Journal.CUTI_STATUS:
+                int cutiId = in.readInt();
+                String status = Journal.readString(in);
+                String approvedBy = Journal.readString(in);
+                terapkanStatusCuti(cutiList.get(cutiId), status, approvedBy);
+                break;
+            case Journal.CUTI_STATUS_BATCH:
+                int jumlah = in.readInt();
+                int[] cutiIds = new int[jumlah];
+                for (int i = 0; i < jumlah; i++) {
+                    cutiIds[i] = in.readInt();
+                }
+                String statusBatch = Journal.readString(in);
+                String approvedByBatch = Journal.readString(in);
+                for (int id : cutiIds) {
+                    terapkanStatusCuti(cutiList.get(id), statusBatch, approvedByBatch);
+                }
+                break;
+            default:
+                throw new IOException("Tipe record journal tidak dikenal: " + type);
+        }
+    }
+
+    // Mutations are applied in memory, then journaled
+
+    @Override
+    public synchronized void addPegawai(Pegawai pegawai) {
+        super.addPegawai(pegawai);
+        if (journal != null) {
+            journal.append(Journal.PEGAWAI_ADD, out -> Journal.writePegawai(out, pegawai));
+        }
+    }
+
+    @Override
+    public synchronized void updatePegawai(Pegawai pegawai) {
+        super.updatePegawai(pegawai);
+        if (journal != null) {
+            journal.append(Journal.PEGAWAI_UPDATE, out -> Journal.writePegawai(out, pegawai));
+        }
+    }
+
+    @Override
+    public synchronized void addPresensi(Presensi presensi) {
+        super.addPresensi(presensi);
+        if (journal != null) {
+            journal.append(Journal.PRESENSI_ADD, out -> Journal.writePresensi(out, presensi));
+        }
+    }
+
+    @Override
+    public synchronized void addRapat(Rapat rapat) {
+        super.addRapat(rapat);
+        if (journal != null) {
+            journal.append(Journal.RAPAT_ADD, out -> Journal.writeRapat(out, rapat));
+        }
+    }
+
+    @Override
+    public synchronized void addCuti(Cuti cuti) {
+        super.addCuti(cuti);
+        if (journal != null) {
+            journal.append(Journal.CUTI_ADD, out -> Journal.writeCuti(out, cuti));
+        }
+    }
+
+    /**
+     * Keeps the lock around the lock-free transition, so the record lands in the journal in the same
+     * order as the change in memory and a snapshot never sees the balance without the status
+     */
+    @Override
+    public synchronized void updateStatusCuti(Cuti cuti, String status, String approvedBy) {
+        super.updateStatusCuti(cuti, status, approvedBy);
+        if (journal != null) {
+            journal.append(Journal.CUTI_STATUS, out -> {
+                out.writeInt(cuti.id);
+                Journal.writeString(out, status);
+                Journal.writeString(out, approvedBy);
+            });
+        }
+    }
+
+    /**
+     * A batch is journaled as one record, so after a crash it is replayed completely or not at all
+     */
+    @Override
+    public synchronized void updateStatusCuti(List<Cuti> daftar, String status, String approvedBy) {
+        super.updateStatusCuti(daftar, status, approvedBy);
+        if (journal != null) {
+            int[] cutiIds = daftar.stream().mapToInt(c -> c.id).distinct().toArray();
+            journal.append(Journal.CUTI_STATUS_BATCH, out -> {
+                out.writeInt(cutiIds.length);
+                for (int id : cutiIds) {
+                    out.writeInt(id);
+                }
+                Journal.writeString(out, status);
+                Journal.writeString(out, approvedBy);
+            });
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current data and deletes the journal segments it covers.
+     * Closed months still in the row store are sealed into segment files first. The journal is
+     * rotated and the data copied while mutations are blocked; the file itself is written afterwards.
+     */
+    void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            Snapshot captured;
+            long covered;
+            Set<String> segmentFiles = new HashSet<>();
+            synchronized (this) {
+                boolean closedMonths = hasClosedMonthsInStore();
+                if (journal == null || (journal.appendedCount() == 0 && !tailNotSnapshotted && !closedMonths)) {
+                    return; // Nothing new since the last snapshot
+                }
+                if (closedMonths) {
+                    sealClosedMonths();
+                }
+                journal.flush();
+                journal.close();
+                covered = currentSegment;
+                currentSegment++;
+                journal = openJournal(currentSegment);
+                captured = Snapshot.capture(this, covered);
+                tailNotSnapshotted = false;
+                for (PresensiSegment segment : presensiSegments.values()) {
+                    segmentFiles.add(segment.file.getFileName().toString());
+                }
+            }
+
+            captured.write(dataDir.resolve(Snapshot.FILE_NAME));
+            snapshotSegment = covered;
+
+            // Compaction: journal segments covered by the snapshot and superseded month segments are no longer needed
+            for (long segment : Journal.listSegments(dataDir)) {
+                if (segment <= covered) {
+                    Files.deleteIfExists(Journal.segmentFile(dataDir, segment));
+                }
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dataDir, "presensi-*.seg*")) {
+                for (Path file : files) {
+                    if (!segmentFiles.contains(file.getFileName().toString())) {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            // Still mapped on some platforms; removed by a later snapshot
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the row store still holds rows of a month that has ended
+     */
+    private boolean hasClosedMonthsInStore() {
+        int awalBulanIni = ClockService.monthStartEpochDay();
+        for (int row = 0; row < presensiStore.size(); row++) {
+            if (presensiStore.epochDay(row) < awalBulanIni) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the rows of closed months from the row store into memory-mapped month segments.
+     * A month that already has a segment (late records) gets a new generation with the merged rows.
+     */
+    private void sealClosedMonths() throws IOException {
+        int awalBulanIni = ClockService.monthStartEpochDay();
+        Map<Integer, List<Integer>> rowsPerBulan = new TreeMap<>();
+        PresensiStore sisa = PresensiStore.create();
+        for (int row = 0; row < presensiStore.size(); row++) {
+            if (presensiStore.epochDay(row) < awalBulanIni) {
+                rowsPerBulan.computeIfAbsent(DataStore.bulanKey(presensiStore.epochDay(row)), k -> new ArrayList<>()).add(row);
+            } else {
+                Presensi presensi = presensiStore.get(row);
+                presensi.pegawaiOrdinal = presensiStore.pegawaiOrdinal(row);
+                sisa.add(presensi);
+            }
+        }
+
+        for (Map.Entry<Integer, List<Integer>> entry : rowsPerBulan.entrySet()) {
+            PresensiSegment lama = presensiSegments.get(entry.getKey());
+            int jumlahLama = lama != null ? lama.size() : 0;
+            int total = jumlahLama + entry.getValue().size();
+            int[] pegawai = new int[total];
+            int[] hari = new int[total];
+            byte[] status = new byte[total];
+            Map<Integer, String> approvedBy = new HashMap<>();
+            for (int i = 0; i < jumlahLama; i++) {
+                pegawai[i] = lama.pegawaiOrdinal(i);
+                hari[i] = lama.epochDay(i);
+                status[i] = lama.status(i);
+                if (lama.approvedBy(i) != null) {
+                    approvedBy.put(i, lama.approvedBy(i));
+                }
+            }
+            int i = jumlahLama;
+            for (int row : entry.getValue()) {
+                pegawai[i] = presensiStore.pegawaiOrdinal(row);
+                hari[i] = presensiStore.epochDay(row);
+                status[i] = presensiStore.status(row);
+                String approver = presensiStore.approvedBy(row);
+                if (approver != null) {
+                    approvedBy.put(i, approver);
+                }
+                i++;
+            }
+            int generation = lama != null ? lama.generation + 1 : 1;
+            presensiSegments.put(entry.getKey(),
+                    PresensiSegment.write(dataDir, entry.getKey(), generation, pegawai, hari, status, approvedBy));
+        }
+
+        presensiStore = sisa;
+        rebuildPresensiIndex();
+    }
+
+    /**
+     * Writes a final snapshot, then flushes and closes the journal
+     */
+    @Override
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        try {
+            snapshot();
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Snapshot saat menutup gagal", e);
+        }
+        synchronized (this) {
+            try {
+                journal.flush();
+                journal.close();
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Journal gagal ditutup", e);
+            }
+            journal = null;
+        }
+    }
+}
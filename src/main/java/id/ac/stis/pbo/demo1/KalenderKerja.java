@@ -0,0 +1,158 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Working-Day Calendar
+ * Decides which days are working days (not a weekend, not a public holiday) and counts them.
+ *
+ * Every year is precomputed once into a bitset of non-working days plus a prefix sum of working
+ * days, so "working days between two dates" is two array lookups per year spanned.
+ *
+ * Configuration (system properties):
+ * - gawe.hariLibur.tetap: holidays on the same date every year as MM-dd, comma separated
+ *   (default 01-01,05-01,06-01,08-17,12-25)
+ * - gawe.hariLibur: extra holidays as yyyy-MM-dd, comma separated (e.g. Idul Fitri, Nyepi)
+ * - gawe.hariLibur.file: file with one yyyy-MM-dd holiday per line; # starts a comment
+ */
+final class KalenderKerja {
+    private static final System.Logger LOG = System.getLogger(KalenderKerja.class.getName());
+
+    /**
+     * Non-working days and working-day prefix sums of one year
+     */
+    private static final class Tahun {
+        final int awalEpochDay;
+        final BitSet libur;
+        final int[] kumulatif; // kumulatif[i] = working days in the first i days of the year
+
+        Tahun(int tahun) {
+            LocalDate awal = LocalDate.of(tahun, 1, 1);
+            int panjang = awal.lengthOfYear();
+            this.awalEpochDay = (int) awal.toEpochDay();
+            this.libur = new BitSet(panjang);
+            this.kumulatif = new int[panjang + 1];
+            for (int i = 0; i < panjang; i++) {
+                LocalDate tanggal = awal.plusDays(i);
+                if (tanggal.getDayOfWeek().getValue() >= 6 || LIBUR_TETAP.contains(MonthDay.from(tanggal))
+                        || LIBUR.contains(tanggal)) {
+                    libur.set(i);
+                }
+                kumulatif[i + 1] = kumulatif[i] + (libur.get(i) ? 0 : 1);
+            }
+        }
+
+        int total() {
+            return kumulatif[kumulatif.length - 1];
+        }
+    }
+
+    private static final Set<MonthDay> LIBUR_TETAP = new HashSet<>();
+    private static final Set<LocalDate> LIBUR = new HashSet<>();
+    private static final Map<Integer, Tahun> perTahun = new ConcurrentHashMap<>();
+
+    static {
+        for (String tanggal : split(System.getProperty("gawe.hariLibur.tetap", "01-01,05-01,06-01,08-17,12-25"))) {
+            try {
+                LIBUR_TETAP.add(MonthDay.parse("--" + tanggal));
+            } catch (DateTimeException e) {
+                LOG.log(System.Logger.Level.WARNING, "Hari libur tetap tidak valid: {0}", tanggal);
+            }
+        }
+        List<String> libur = new ArrayList<>(split(System.getProperty("gawe.hariLibur", "")));
+        String file = System.getProperty("gawe.hariLibur.file");
+        if (file != null) {
+            try {
+                for (String line : Files.readAllLines(Paths.get(file))) {
+                    int komentar = line.indexOf('#');
+                    libur.add((komentar >= 0 ? line.substring(0, komentar) : line).trim());
+                }
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.WARNING, "File hari libur tidak dapat dibaca: " + file, e);
+            }
+        }
+        for (String tanggal : libur) {
+            if (!tanggal.isEmpty()) {
+                try {
+                    LIBUR.add(LocalDate.parse(tanggal));
+                } catch (DateTimeException e) {
+                    LOG.log(System.Logger.Level.WARNING, "Hari libur tidak valid: {0}", tanggal);
+                }
+            }
+        }
+    }
+
+    private KalenderKerja() {
+    }
+
+    private static List<String> split(String value) {
+        List<String> result = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                result.add(part.trim());
+            }
+        }
+        return result;
+    }
+
+    private static Tahun tahun(int tahun) {
+        return perTahun.computeIfAbsent(tahun, Tahun::new);
+    }
+
+    static boolean isHariKerja(LocalDate tanggal) {
+        Tahun t = tahun(tanggal.getYear());
+        return !t.libur.get((int) tanggal.toEpochDay() - t.awalEpochDay);
+    }
+
+    /**
+     * Counts the working days in [dari, sampai], both inclusive; 0 if sampai is before dari
+     */
+    static int hariKerja(LocalDate dari, LocalDate sampai) {
+        if (sampai.isBefore(dari)) {
+            return 0;
+        }
+        Tahun awal = tahun(dari.getYear());
+        int mulai = (int) dari.toEpochDay() - awal.awalEpochDay;
+        if (dari.getYear() == sampai.getYear()) {
+            return awal.kumulatif[(int) sampai.toEpochDay() - awal.awalEpochDay + 1] - awal.kumulatif[mulai];
+        }
+        int jumlah = awal.total() - awal.kumulatif[mulai];
+        for (int y = dari.getYear() + 1; y < sampai.getYear(); y++) {
+            jumlah += tahun(y).total();
+        }
+        Tahun akhir = tahun(sampai.getYear());
+        return jumlah + akhir.kumulatif[(int) sampai.toEpochDay() - akhir.awalEpochDay + 1];
+    }
+
+    static int hariKerja(Date dari, Date sampai) {
+        // Via epoch millis: java.sql.Date (from the date pickers) does not support toInstant()
+        ZoneId zone = ZoneId.systemDefault();
+        return hariKerja(Instant.ofEpochMilli(dari.getTime()).atZone(zone).toLocalDate(),
+                Instant.ofEpochMilli(sampai.getTime()).atZone(zone).toLocalDate());
+    }
+
+    /**
+     * Counts the working days of a month (1-12)
+     */
+    static int hariKerjaBulan(int bulan, int tahun) {
+        LocalDate awal = LocalDate.of(tahun, bulan, 1);
+        return hariKerja(awal, awal.plusMonths(1).minusDays(1));
+    }
+
+    /**
+     * Attendance percentage of a month: days present over the month's working days
+     */
+    static double persentaseKehadiran(long hadir, int bulan, int tahun) {
+        int hariKerja = hariKerjaBulan(bulan, tahun);
+        return hariKerja > 0 ? hadir * 100.0 / hariKerja : 0;
+    }
+}
@@ -208,27 +208,22 @@ public class ManagerDashboard extends Application {
     private HBox createManagerStatsRow() {
         HBox statsRow = new HBox(20);
 
-        // Count team members
-        long teamCount = DataStore.pegawaiMap.values().stream()
-                .filter(p -> manajer.divisi.equals(p.divisi))
-                .filter(p -> !p.id.equals(manajer.id))
-                .count();
+        DashboardSummary summary = DataStore.getDashboardSummary();
+        DashboardSummary.Divisi divisi = summary.getDivisi(manajer.divisi);
+        boolean tanpaManajer = manajerDihitung(summary, manajer.divisi);
+
+        // Count team members (the division without the manager)
+        long teamCount = divisi.jumlahPegawai - (tanpaManajer ? 1 : 0);
 
         // Count pending leave requests for division
-        long pendingLeaves = DataStore.getPendingCutiByDivision(manajer.divisi).size();
+        long pendingLeaves = divisi.cutiPending;
 
         // Count meetings scheduled
-        long meetingsCount = DataStore.rapatList.stream()
-                .filter(r -> r.divisi.equals(manajer.divisi))
-                .count();
+        long meetingsCount = DataStore.getRapatByDivision(manajer.divisi).size();
 
         // Calculate team average attendance
-        double avgAttendance = DataStore.pegawaiMap.values().stream()
-                .filter(p -> manajer.divisi.equals(p.divisi))
-                .filter(p -> !p.id.equals(manajer.id))
-                .mapToLong(p -> DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear()))
-                .average()
-                .orElse(0.0);
+        long teamHadir = divisi.totalHadir - (tanpaManajer ? summary.getPayroll().getHadir(manajer) : 0);
+        double avgAttendance = teamCount > 0 ? (double) teamHadir / teamCount : 0.0;
 
         statsRow.getChildren().addAll(
                 createStatCard("Anggota Tim", String.valueOf(teamCount), "#28a745"),
@@ -240,6 +235,14 @@ public class ManagerDashboard extends Application {
         return statsRow;
     }
 
+    /**
+     * Whether the summary counted the manager in the figures of divisi: only then are the manager's
+     * own Hadir days and salary taken out of the team figures
+     */
+    private boolean manajerDihitung(DashboardSummary summary, String divisi) {
+        return manajer.divisi.equals(divisi) && summary.getPayroll().termasuk(manajer);
+    }
+
     /**
      * Creates quick actions section for managers
      */
@@ -284,9 +287,10 @@ public class ManagerDashboard extends Application {
         teamList.setPrefHeight(150);
 
         // Add team members with their current status
-        for (Pegawai p : DataStore.pegawaiMap.values()) {
-            if (manajer.divisi.equals(p.divisi) && !p.id.equals(manajer.id)) {
-                long hadirBulanIni = DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear());
+        PayrollRun payroll = DataStore.getDashboardSummary().getPayroll();
+        for (Pegawai p : DataStore.getPegawaiByDivision(manajer.divisi)) {
+            if (p.ordinal != manajer.ordinal) {
+                long hadirBulanIni = payroll.getHadir(p);
                 teamList.getItems().add(p.nama + " (" + p.jabatan + ") - Hadir: " + hadirBulanIni + " hari");
             }
         }
@@ -355,6 +359,33 @@ public class ManagerDashboard extends Application {
         ruanganCombo.getItems().addAll("Ruang A", "Ruang B", "Ruang C", "Ruang Meeting Utama", "Ruang Konferensi");
         ruanganCombo.setPromptText("Pilih Ruangan");
 
+        // Hour order, then room availability for the chosen date and hours
+        Label ruanganStatusLabel = new Label();
+        Runnable cekRuangan = () -> {
+            if (jamSelesaiSpinner.getValue() <= jamMulaiSpinner.getValue()) {
+                ruanganStatusLabel.setText("✗ Jam selesai rapat harus setelah jam mulai");
+                ruanganStatusLabel.setTextFill(Color.RED);
+                return;
+            }
+            if (tanggalPicker.getValue() == null || ruanganCombo.getValue() == null) {
+                ruanganStatusLabel.setText("");
+                return;
+            }
+            long mulai = jamRapat(tanggalPicker.getValue(), jamMulaiSpinner.getValue());
+            long selesai = jamRapat(tanggalPicker.getValue(), jamSelesaiSpinner.getValue());
+            if (DataStore.isRuanganKosong(ruanganCombo.getValue(), mulai, selesai)) {
+                ruanganStatusLabel.setText("✓ Ruangan tersedia");
+                ruanganStatusLabel.setTextFill(Color.GREEN);
+            } else {
+                ruanganStatusLabel.setText("✗ Ruangan sudah dipakai pada jam tersebut");
+                ruanganStatusLabel.setTextFill(Color.RED);
+            }
+        };
+        tanggalPicker.valueProperty().addListener((obs, lama, baru) -> cekRuangan.run());
+        jamMulaiSpinner.valueProperty().addListener((obs, lama, baru) -> cekRuangan.run());
+        jamSelesaiSpinner.valueProperty().addListener((obs, lama, baru) -> cekRuangan.run());
+        ruanganCombo.valueProperty().addListener((obs, lama, baru) -> cekRuangan.run());
+
         // Division checkboxes
         CheckBox marketingCheck = new CheckBox("Marketing");
         CheckBox hrCheck = new CheckBox("HR");
@@ -374,6 +405,7 @@ public class ManagerDashboard extends Application {
         form.add(jamSelesaiSpinner, 1, 5);
         form.add(new Label("Ruangan:"), 0, 6);
         form.add(ruanganCombo, 1, 6);
+        form.add(ruanganStatusLabel, 2, 6);
         form.add(new Label("Divisi yang Dibutuhkan:"), 0, 7);
 
         HBox divisiBox = new HBox(10);
@@ -386,10 +418,62 @@ public class ManagerDashboard extends Application {
                 jamMulaiSpinner, jamSelesaiSpinner, ruanganCombo,
                 marketingCheck, hrCheck, keuanganCheck));
 
-        formContainer.getChildren().addAll(formTitle, form, createBtn);
+        // Free slot finder: earliest hours in the next 30 days where the room and all divisions are free
+        Button cariSlotBtn = new Button("Cari Slot Kosong");
+        cariSlotBtn.setStyle("-fx-background-color: #17a2b8; -fx-text-fill: white; -fx-padding: 10 20; -fx-background-radius: 5;");
+        ListView<SlotFinder.Slot> slotList = new ListView<>();
+        slotList.setPrefHeight(120);
+        slotList.setVisible(false);
+        slotList.setManaged(false);
+
+        cariSlotBtn.setOnAction(e -> {
+            Set<String> divisi = new LinkedHashSet<>();
+            divisi.add(manajer.divisi);
+            if (marketingCheck.isSelected()) divisi.add("Marketing");
+            if (hrCheck.isSelected()) divisi.add("HR");
+            if (keuanganCheck.isSelected()) divisi.add("Keuangan");
+            List<String> ruangan = ruanganCombo.getValue() != null
+                    ? Collections.singletonList(ruanganCombo.getValue()) : ruanganCombo.getItems();
+            int durasiJam = Math.max(1, jamSelesaiSpinner.getValue() - jamMulaiSpinner.getValue());
+            LocalDate dari = tanggalPicker.getValue() != null && !tanggalPicker.getValue().isBefore(ClockService.today())
+                    ? tanggalPicker.getValue() : ClockService.today();
+
+            List<SlotFinder.Slot> slots = new SlotFinder(dari, dari.plusDays(30), 8, 18)
+                    .cari(divisi, ruangan, durasiJam * 60, 60, 10);
+            slotList.getItems().setAll(slots);
+            slotList.setVisible(true);
+            slotList.setManaged(true);
+            if (slots.isEmpty()) {
+                showAlert(Alert.AlertType.INFORMATION, "Slot Tidak Ditemukan", "Tidak ada slot kosong dalam 30 hari ke depan.");
+            }
+        });
+
+        // Choosing a slot fills in date, hours and room
+        slotList.getSelectionModel().selectedItemProperty().addListener((obs, lama, slot) -> {
+            if (slot == null) {
+                return;
+            }
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(slot.mulai);
+            tanggalPicker.setValue(slot.mulai.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+            jamMulaiSpinner.getValueFactory().setValue(cal.get(Calendar.HOUR_OF_DAY));
+            cal.setTime(slot.selesai);
+            jamSelesaiSpinner.getValueFactory().setValue(cal.get(Calendar.HOUR_OF_DAY));
+            ruanganCombo.setValue(slot.ruangan);
+        });
+
+        HBox buttons = new HBox(10, createBtn, cariSlotBtn);
+        formContainer.getChildren().addAll(formTitle, form, buttons, slotList);
         return formContainer;
     }
 
+    /**
+     * Epoch millis of a full hour on a date
+     */
+    private long jamRapat(LocalDate tanggal, int jam) {
+        return tanggal.atTime(jam, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     /**
      * Handles meeting creation
      */
@@ -412,6 +496,11 @@ public class ManagerDashboard extends Application {
         endCal.setTime(java.sql.Date.valueOf(tanggalPicker.getValue()));
         endCal.set(Calendar.HOUR_OF_DAY, jamSelesaiSpinner.getValue());
 
+        if (!endCal.after(startCal)) {
+            showAlert(Alert.AlertType.ERROR, "Jam Tidak Valid", "Jam selesai rapat harus setelah jam mulai!");
+            return;
+        }
+
         Rapat rapat = new Rapat(
                 namaRapatField.getText(),
                 topikField.getText(),
@@ -433,7 +522,20 @@ public class ManagerDashboard extends Application {
             rapat.divisiDibutuhkan.add(manajer.divisi);
         }
 
-        DataStore.addRapat(rapat);
+        Rapat bentrok;
+        try {
+            bentrok = DataStore.addRapatTanpaBentrok(rapat);
+        } catch (IllegalArgumentException e) {
+            showAlert(Alert.AlertType.ERROR, "Jam Tidak Valid", e.getMessage());
+            return;
+        }
+        if (bentrok != null) {
+            SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+            showAlert(Alert.AlertType.ERROR, "Ruangan Tidak Tersedia",
+                    rapat.ruangan + " sudah dipakai untuk \"" + bentrok.namaRapat + "\" ("
+                            + sdf.format(bentrok.tanggalMulai) + " - " + sdf.format(bentrok.tanggalSelesai) + ")");
+            return;
+        }
         showAlert(Alert.AlertType.INFORMATION, "Rapat Berhasil Dibuat", "Rapat berhasil dijadwalkan!");
 
         // Clear form
@@ -482,10 +584,7 @@ public class ManagerDashboard extends Application {
         meetingsTable.getColumns().addAll(namaCol, tanggalCol, ruanganCol, divisiCol);
 
         // Show meetings created by this manager
-        ObservableList<Rapat> managerMeetings = DataStore.rapatList.stream()
-                .filter(r -> r.divisi.equals(manajer.divisi))
-                .sorted((a, b) -> a.tanggalMulai.compareTo(b.tanggalMulai))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        ObservableList<Rapat> managerMeetings = FXCollections.observableArrayList(DataStore.getRapatByDivision(manajer.divisi));
 
         meetingsTable.setItems(managerMeetings);
         meetingsTable.setPrefHeight(250);
@@ -530,7 +629,7 @@ public class ManagerDashboard extends Application {
 
         TableColumn<Cuti, String> pegawaiCol = new TableColumn<>("Pegawai");
         pegawaiCol.setCellValueFactory(data -> {
-            Pegawai p = DataStore.getPegawai(data.getValue().pegawaiId);
+            Pegawai p = DataStore.getPegawai(data.getValue().pegawaiOrdinal);
             return new javafx.beans.property.SimpleStringProperty(p != null ? p.nama : data.getValue().pegawaiId);
         });
         pegawaiCol.setPrefWidth(150);
@@ -555,11 +654,10 @@ public class ManagerDashboard extends Application {
 
         table.getColumns().addAll(pegawaiCol, keperluanCol, periodeCol, jumlahHariCol, alasanCol);
         table.setPrefHeight(200);
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         // Load pending leave requests for this division
-        ObservableList<Cuti> pendingRequests = DataStore.getPendingCutiByDivision(manajer.divisi)
-                .stream()
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        ObservableList<Cuti> pendingRequests = FXCollections.observableArrayList(DataStore.getPendingCutiByDivision(manajer.divisi));
 
         table.setItems(pendingRequests);
 
@@ -580,34 +678,33 @@ public class ManagerDashboard extends Application {
     }
 
     /**
-     * Handles leave approval/rejection
+     * Handles leave approval/rejection of all selected requests at once
      */
     private void handleLeaveApproval(TableView<Cuti> table, boolean approve) {
-        Cuti selected = table.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            if (approve) {
-                selected.status = "Disetujui";
-                selected.approvedBy = manajer.id;
-
-                // Update employee's remaining leave
-                Pegawai employee = DataStore.getPegawai(selected.pegawaiId);
-                if (employee != null) {
-                    employee.sisaCuti -= (int) selected.getJumlahHari();
-                }
-
-                showAlert(Alert.AlertType.INFORMATION, "Cuti Disetujui",
-                        "Cuti telah disetujui!\nPegawai: " + (employee != null ? employee.nama : "N/A") +
-                                "\nSisa cuti: " + (employee != null ? employee.sisaCuti : "N/A") + " hari");
-            } else {
-                selected.status = "Ditolak";
-                selected.approvedBy = manajer.id;
-                showAlert(Alert.AlertType.INFORMATION, "Cuti Ditolak", "Cuti telah ditolak!");
-            }
+        List<Cuti> selected = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "Pilihan Tidak Valid", "Pilih pengajuan cuti yang akan diproses!");
+            return;
+        }
 
-            showLeaveApprovalContent(); // Refresh
+        try {
+            // Approval also updates the employees' remaining leave
+            DataStore.updateStatusCuti(selected, approve ? "Disetujui" : "Ditolak", manajer.id);
+        } catch (IllegalStateException e) {
+            showAlert(Alert.AlertType.ERROR, "Gagal Memproses Cuti", e.getMessage() + "\nTidak ada pengajuan yang diproses.");
+            return;
+        }
+
+        if (approve) {
+            StringBuilder sisa = new StringBuilder();
+            selected.stream().map(c -> DataStore.getPegawai(c.pegawaiOrdinal)).filter(Objects::nonNull).distinct()
+                    .forEach(p -> sisa.append("\n").append(p.nama).append(": sisa cuti ").append(p.sisaCuti).append(" hari"));
+            showAlert(Alert.AlertType.INFORMATION, "Cuti Disetujui", selected.size() + " pengajuan cuti telah disetujui!" + sisa);
         } else {
-            showAlert(Alert.AlertType.WARNING, "Pilihan Tidak Valid", "Pilih pengajuan cuti yang akan diproses!");
+            showAlert(Alert.AlertType.INFORMATION, "Cuti Ditolak", selected.size() + " pengajuan cuti telah ditolak!");
         }
+
+        showLeaveApprovalContent(); // Refresh
     }
 
     /**
@@ -624,7 +721,7 @@ public class ManagerDashboard extends Application {
 
         TableColumn<Cuti, String> pegawaiCol = new TableColumn<>("Pegawai");
         pegawaiCol.setCellValueFactory(data -> {
-            Pegawai p = DataStore.getPegawai(data.getValue().pegawaiId);
+            Pegawai p = DataStore.getPegawai(data.getValue().pegawaiOrdinal);
             return new javafx.beans.property.SimpleStringProperty(p != null ? p.nama : data.getValue().pegawaiId);
         });
 
@@ -641,14 +738,9 @@ public class ManagerDashboard extends Application {
 
         historyTable.getColumns().addAll(pegawaiCol, periodeCol, statusCol, approvedByCol);
 
-        ObservableList<Cuti> processedLeaves = DataStore.cutiList.stream()
-                .filter(c -> !"Pending".equals(c.status))
-                .filter(c -> {
-                    Pegawai p = DataStore.getPegawai(c.pegawaiId);
-                    return p != null && manajer.divisi.equals(p.divisi);
-                })
-                .sorted((a, b) -> b.mulai.compareTo(a.mulai))
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
+        ObservableList<Cuti> processedLeaves = FXCollections.observableArrayList(DataStore.getCutiDivisi(manajer.divisi, "Disetujui"));
+        processedLeaves.addAll(DataStore.getCutiDivisi(manajer.divisi, "Ditolak"));
+        processedLeaves.sort((a, b) -> b.mulai.compareTo(a.mulai));
 
         historyTable.setItems(processedLeaves);
         historyTable.setPrefHeight(200);
@@ -708,16 +800,17 @@ public class ManagerDashboard extends Application {
 
         table.getColumns().addAll(namaCol, jabatanCol, kehadiranCol, persentaseCol, gajiCol);
 
+        PayrollRun payroll = DataStore.getPayrollRun();
         ObservableList<Map<String, Object>> teamData = FXCollections.observableArrayList();
-        for (Pegawai p : DataStore.pegawaiMap.values()) {
-            if (manajer.divisi.equals(p.divisi) && !p.id.equals(manajer.id)) {
+        for (Pegawai p : DataStore.getPegawaiByDivision(manajer.divisi)) {
+            if (p.ordinal != manajer.ordinal) {
                 Map<String, Object> row = new HashMap<>();
-                long hadirCount = DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear());
+                long hadirCount = payroll.getHadir(p);
                 row.put("nama", p.nama);
                 row.put("jabatan", p.jabatan);
                 row.put("kehadiran", hadirCount);
-                row.put("persentase", hadirCount > 0 ? Math.round((hadirCount / 22.0) * 100) : 0);
-                row.put("gaji", p.calculateGajiBulanan());
+                row.put("persentase", Math.round(KalenderKerja.persentaseKehadiran(hadirCount, ClockService.bulanIni(), ClockService.tahunIni())));
+                row.put("gaji", payroll.getGaji(p));
                 teamData.add(row);
             }
         }
@@ -738,22 +831,19 @@ public class ManagerDashboard extends Application {
         Label analyticsTitle = new Label("Analytics Tim");
         analyticsTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
 
-        // Calculate team statistics
-        List<Pegawai> teamMembers = DataStore.pegawaiMap.values().stream()
-                .filter(p -> manajer.divisi.equals(p.divisi))
-                .filter(p -> !p.id.equals(manajer.id))
-                .collect(Collectors.toList());
+        // Calculate team statistics (the division without the manager)
+        DashboardSummary summary = DataStore.getDashboardSummary();
+        DashboardSummary.Divisi divisi = summary.getDivisi(manajer.divisi);
+        PayrollRun payroll = summary.getPayroll();
+        boolean tanpaManajer = manajerDihitung(summary, manajer.divisi);
+        int teamCount = divisi.jumlahPegawai - (tanpaManajer ? 1 : 0);
 
-        double avgTeamAttendance = teamMembers.stream()
-                .mapToLong(p -> DataStore.getKehadiranBulan(p.id, LocalDate.now().getMonthValue(), LocalDate.now().getYear()))
-                .average()
-                .orElse(0.0);
+        long teamHadir = divisi.totalHadir - (tanpaManajer ? payroll.getHadir(manajer) : 0);
+        double avgTeamAttendance = teamCount > 0 ? (double) teamHadir / teamCount : 0.0;
 
-        double totalTeamSalary = teamMembers.stream()
-                .mapToDouble(Pegawai::calculateGajiBulanan)
-                .sum();
+        double totalTeamSalary = divisi.totalGaji - (tanpaManajer ? payroll.getGaji(manajer) : 0);
 
-        long totalPendingLeaves = DataStore.getPendingCutiByDivision(manajer.divisi).size();
+        long totalPendingLeaves = divisi.cutiPending;
 
         HBox analyticsStats = new HBox(20);
         analyticsStats.getChildren().addAll(
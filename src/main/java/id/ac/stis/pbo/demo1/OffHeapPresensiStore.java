@@ -0,0 +1,136 @@
+package id.ac.stis.pbo.demo1;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.util.*;
+
+/**
+ * Off-Heap Attendance Store
+ * Keeps attendance rows as fixed-width structs in native memory (Foreign Function & Memory API),
+ * so millions of rows add nothing to the Java heap and are never traversed by the garbage collector.
+ *
+ * Rows are stored in chunks of CHUNK_ROWS structs; a full chunk is never copied, a new one is allocated.
+ * The arena is automatic: the native memory is released once the store is no longer reachable.
+ */
+class OffHeapPresensiStore implements PresensiStore {
+    // struct presensi { int pegawai; int hari; byte status; byte[3] padding; }
+    static final StructLayout ROW = MemoryLayout.structLayout(
+            ValueLayout.JAVA_INT.withName("pegawai"),
+            ValueLayout.JAVA_INT.withName("hari"),
+            ValueLayout.JAVA_BYTE.withName("status"),
+            MemoryLayout.paddingLayout(3));
+
+    private static final long ROW_SIZE = ROW.byteSize();
+    private static final long PEGAWAI = ROW.byteOffset(MemoryLayout.PathElement.groupElement("pegawai"));
+    private static final long HARI = ROW.byteOffset(MemoryLayout.PathElement.groupElement("hari"));
+    private static final long STATUS = ROW.byteOffset(MemoryLayout.PathElement.groupElement("status"));
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+    private final Arena arena = Arena.ofAuto();
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    private int size;
+
+    // approvedBy is variable-length and almost always null, so it stays on the heap
+    private final Map<Integer, String> approvedBy = new HashMap<>();
+
+    @Override
+    public int add(Presensi presensi) {
+        if (presensi.pegawaiOrdinal < 0) {
+            throw new IllegalArgumentException("Pegawai tidak dikenal: " + presensi.pegawaiId);
+        }
+        int row = append(presensi.pegawaiOrdinal, PresensiStore.toEpochDay(presensi.tanggal),
+                PresensiStore.statusCode(presensi.keterangan));
+        if (presensi.approvedBy != null) {
+            approvedBy.put(row, presensi.approvedBy);
+        }
+        return row;
+    }
+
+    private int append(int pegawai, int hari, byte status) {
+        if ((size & CHUNK_MASK) == 0 && (size >>> CHUNK_SHIFT) == chunks.size()) {
+            chunks.add(arena.allocate(ROW_SIZE * CHUNK_ROWS, ROW.byteAlignment()));
+        }
+        int row = size;
+        MemorySegment chunk = chunks.get(row >>> CHUNK_SHIFT);
+        long offset = (row & CHUNK_MASK) * ROW_SIZE;
+        chunk.set(ValueLayout.JAVA_INT, offset + PEGAWAI, pegawai);
+        chunk.set(ValueLayout.JAVA_INT, offset + HARI, hari);
+        chunk.set(ValueLayout.JAVA_BYTE, offset + STATUS, status);
+        size++;
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int pegawaiOrdinal(int row) {
+        return chunks.get(row >>> CHUNK_SHIFT).get(ValueLayout.JAVA_INT, (row & CHUNK_MASK) * ROW_SIZE + PEGAWAI);
+    }
+
+    @Override
+    public int epochDay(int row) {
+        return chunks.get(row >>> CHUNK_SHIFT).get(ValueLayout.JAVA_INT, (row & CHUNK_MASK) * ROW_SIZE + HARI);
+    }
+
+    @Override
+    public byte status(int row) {
+        return chunks.get(row >>> CHUNK_SHIFT).get(ValueLayout.JAVA_BYTE, (row & CHUNK_MASK) * ROW_SIZE + STATUS);
+    }
+
+    @Override
+    public String approvedBy(int row) {
+        return approvedBy.get(row);
+    }
+
+    @Override
+    public int[] pegawaiColumn() {
+        int[] column = new int[size];
+        for (int row = 0; row < size; row++) {
+            column[row] = pegawaiOrdinal(row);
+        }
+        return column;
+    }
+
+    @Override
+    public int[] hariColumn() {
+        int[] column = new int[size];
+        for (int row = 0; row < size; row++) {
+            column[row] = epochDay(row);
+        }
+        return column;
+    }
+
+    @Override
+    public byte[] statusColumn() {
+        byte[] column = new byte[size];
+        for (int row = 0; row < size; row++) {
+            column[row] = status(row);
+        }
+        return column;
+    }
+
+    @Override
+    public Map<Integer, String> approvedByRows() {
+        return new HashMap<>(approvedBy);
+    }
+
+    @Override
+    public void restore(int[] pegawai, int[] hari, byte[] status, Map<Integer, String> approvedBy) {
+        // Existing chunks are reused, rows beyond the restored size are simply overwritten later
+        size = 0;
+        for (int row = 0; row < pegawai.length; row++) {
+            append(pegawai[row], hari[row], status[row]);
+        }
+        this.approvedBy.clear();
+        this.approvedBy.putAll(approvedBy);
+    }
+}
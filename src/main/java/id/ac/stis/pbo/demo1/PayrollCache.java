@@ -0,0 +1,166 @@
+package id.ac.stis.pbo.demo1;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Payroll Cache
+ * Monthly salaries memoized per (employee ordinal, month key), so a payroll run after a single
+ * attendance record only recomputes that employee. Entries are removed precisely:
+ * - addPresensi removes the employee's entry of the record's month
+ * - an employee edit removes the employee's entries when the salary inputs (gajiPokok, which
+ *   follows role and divisi, or tglMasuk) changed
+ * - at midnight the entries of employees whose years of service changed are removed, and at
+ *   month rollover everything (the tenure reference date of the closed month changes)
+ *
+ * Thread-safe; payroll runs fill it from parallel streams.
+ */
+class PayrollCache {
+
+    private static final class Entry {
+        final double gaji;
+        final double gajiPokok;
+        final long tglMasuk;
+
+        Entry(double gaji, double gajiPokok, long tglMasuk) {
+            this.gaji = gaji;
+            this.gajiPokok = gajiPokok;
+            this.tglMasuk = tglMasuk;
+        }
+    }
+
+    // month key (see DataStore.bulanKey) -> employee ordinal -> salary
+    private final Map<Integer, Map<Integer, Entry>> perBulan = new ConcurrentHashMap<>();
+
+    // Incremented by every invalidation; a salary computed while it changed is not cached
+    private final AtomicLong generasi = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    PayrollCache() {
+        LocalDate[] kemarin = {ClockService.today()};
+        ClockService.addMidnightListener(() -> {
+            LocalDate hariIni = ClockService.today();
+            if (hariIni.getMonthValue() != kemarin[0].getMonthValue() || hariIni.getYear() != kemarin[0].getYear()) {
+                clear();
+            } else {
+                hapusUlangTahunKerja(kemarin[0], hariIni);
+            }
+            kemarin[0] = hariIni;
+        });
+    }
+
+    /**
+     * Gets the current generation; read it before reading the inputs of a computation
+     */
+    long generasi() {
+        return generasi.get();
+    }
+
+    /**
+     * Gets the cached salary of an employee in a month, or computes it and caches it unless
+     * an invalidation happened since generasi (the inputs may have been stale)
+     */
+    double get(Pegawai p, int bulanKey, long generasi, DoubleSupplier hitung) {
+        Map<Integer, Entry> bulan = perBulan.computeIfAbsent(bulanKey, k -> new ConcurrentHashMap<>());
+        Entry entry = bulan.get(p.ordinal);
+        if (entry != null) {
+            hits.increment();
+            return entry.gaji;
+        }
+        misses.increment();
+        double gaji = hitung.getAsDouble();
+        if (p.ordinal >= 0 && this.generasi.get() == generasi) {
+            Entry baru = new Entry(gaji, p.gajiPokok, p.tglMasuk.getTime());
+            bulan.put(p.ordinal, baru);
+            if (this.generasi.get() != generasi) {
+                bulan.remove(p.ordinal, baru); // Invalidated while storing
+            }
+        }
+        return gaji;
+    }
+
+    /**
+     * Called after an attendance record was added
+     */
+    void presensiDitambah(int ordinal, int bulanKey) {
+        Map<Integer, Entry> bulan = perBulan.get(bulanKey);
+        generasi.incrementAndGet();
+        if (bulan != null && bulan.remove(ordinal) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Called after an employee was added or edited; removes the entries computed with other salary inputs
+     */
+    void pegawaiBerubah(Pegawai p) {
+        generasi.incrementAndGet();
+        for (Map<Integer, Entry> bulan : perBulan.values()) {
+            Entry entry = bulan.get(p.ordinal);
+            if (entry != null && (entry.gajiPokok != p.gajiPokok || entry.tglMasuk != p.tglMasuk.getTime())) {
+                bulan.remove(p.ordinal);
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes the current month's entries of employees whose full years of service changed overnight
+     */
+    private void hapusUlangTahunKerja(LocalDate kemarin, LocalDate hariIni) {
+        generasi.incrementAndGet();
+        Map<Integer, Entry> bulan = perBulan.get(DataStore.bulanKey((int) hariIni.toEpochDay()));
+        if (bulan == null) {
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        bulan.entrySet().removeIf(e -> {
+            LocalDate masuk = LocalDate.ofInstant(Instant.ofEpochMilli(e.getValue().tglMasuk), zone);
+            boolean berubah = PayrollRun.masaKerja(masuk, kemarin) != PayrollRun.masaKerja(masuk, hariIni);
+            if (berubah) {
+                invalidations.increment();
+            }
+            return berubah;
+        });
+    }
+
+    void clear() {
+        generasi.incrementAndGet();
+        for (Map<Integer, Entry> bulan : perBulan.values()) {
+            invalidations.add(bulan.size());
+        }
+        perBulan.clear();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    double getHitRatio() {
+        long h = getHits(), total = h + getMisses();
+        return total > 0 ? (double) h / total : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Payroll cache: %d hit, %d miss (%.1f%% hit), %d invalidasi",
+                getHits(), getMisses(), getHitRatio() * 100, getInvalidations());
+    }
+}
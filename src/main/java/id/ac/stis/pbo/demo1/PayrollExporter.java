@@ -0,0 +1,224 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Payroll Exporter
+ * Writes a payroll run as CSV or as a fixed-width bank transfer file. Rows are encoded one at a
+ * time into a 64 KB buffer that is written to a FileChannel whenever it fills up, so memory use
+ * does not depend on the number of employees. The output goes to a temporary file that replaces
+ * the target only when complete; an interrupted export (FileChannel is interruptible) leaves
+ * the target untouched.
+ *
+ * Bank transfer layout (ASCII, 100 characters per record, CRLF):
+ * - Header:  "H" | transfer date yyyyMMdd | period yyyyMM | record count (7) | total (18) | spaces
+ * - Detail:  "D" | sequence (7) | employee id (40, left) | name (35, left) | amount (15) | spaces
+ * - Trailer: "T" | record count (7) | total (18) | spaces
+ * Numbers are whole rupiah, right-aligned and zero-padded (a negative amount fails the export);
+ * text is space-padded and truncated.
+ *
+ * CSV text cells starting with =, +, -, @, tab or CR get a leading ' so spreadsheets do not run them as formulas.
+ */
+class PayrollExporter {
+    static final int PANJANG_RECORD = 100;
+    private static final int PROGRESS_SETIAP = 1024;
+
+    /**
+     * Receives the number of rows written so far
+     */
+    interface Progress {
+        void update(long selesai, long total);
+    }
+
+    /**
+     * Writes the run as CSV (UTF-8, one row per employee)
+     */
+    static void writeCsv(PayrollRun run, Path file, Progress progress) throws IOException {
+        List<Pegawai> pegawai = run.getPegawai();
+        try (ChannelWriter out = new ChannelWriter(file, StandardCharsets.UTF_8)) {
+            out.line.append("ID,Nama,Divisi,Jabatan,Gaji Pokok,Kehadiran,Bonus Kehadiran,Total Gaji");
+            out.endLine("\n");
+            for (int i = 0; i < pegawai.size(); i++) {
+                Pegawai p = pegawai.get(i);
+                long hadir = run.getHadir(p);
+                csv(out.line, p.id).append(',');
+                csv(out.line, p.nama).append(',');
+                csv(out.line, p.divisi).append(',');
+                csv(out.line, p.jabatan).append(',');
+                out.line.append(Math.round(p.gajiPokok)).append(',')
+                        .append(hadir).append(',')
+                        .append(Math.round(hadir * Pegawai.BONUS_PER_HADIR)).append(',')
+                        .append(Math.round(run.getGaji(p)));
+                out.endLine("\n");
+                if (i % PROGRESS_SETIAP == 0) {
+                    progress.update(i, pegawai.size());
+                }
+            }
+            out.commit();
+        }
+        progress.update(pegawai.size(), pegawai.size());
+    }
+
+    /**
+     * Writes the run as a fixed-width bank transfer file (see the class comment for the layout)
+     */
+    static void writeTransferBank(PayrollRun run, LocalDate tanggalTransfer, Path file, Progress progress) throws IOException {
+        List<Pegawai> pegawai = run.getPegawai();
+        long total = 0;
+        for (Pegawai p : pegawai) {
+            total += Math.round(run.getGaji(p));
+        }
+
+        try (ChannelWriter out = new ChannelWriter(file, StandardCharsets.US_ASCII)) {
+            out.line.append('H').append(tanggalTransfer.format(DateTimeFormatter.BASIC_ISO_DATE));
+            angka(out.line, run.tahun, 4);
+            angka(out.line, run.bulan, 2);
+            angka(out.line, pegawai.size(), 7);
+            angka(out.line, total, 18);
+            out.endRecord();
+
+            for (int i = 0; i < pegawai.size(); i++) {
+                Pegawai p = pegawai.get(i);
+                out.line.append('D');
+                angka(out.line, i + 1, 7);
+                teks(out.line, p.id, 40);
+                teks(out.line, p.nama, 35);
+                angka(out.line, Math.round(run.getGaji(p)), 15);
+                out.endRecord();
+                if (i % PROGRESS_SETIAP == 0) {
+                    progress.update(i, pegawai.size());
+                }
+            }
+
+            out.line.append('T');
+            angka(out.line, pegawai.size(), 7);
+            angka(out.line, total, 18);
+            out.endRecord();
+            out.commit();
+        }
+        progress.update(pegawai.size(), pegawai.size());
+    }
+
+    private static StringBuilder csv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private static void angka(StringBuilder line, long value, int lebar) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Nilai negatif tidak bisa diekspor: " + value);
+        }
+        String digits = Long.toString(value);
+        if (digits.length() > lebar) {
+            throw new IllegalArgumentException("Nilai " + value + " tidak muat dalam " + lebar + " digit");
+        }
+        for (int i = digits.length(); i < lebar; i++) {
+            line.append('0');
+        }
+        line.append(digits);
+    }
+
+    private static void teks(StringBuilder line, String value, int lebar) {
+        String v = value != null ? value : "";
+        for (int i = 0; i < lebar; i++) {
+            char c = i < v.length() ? v.charAt(i) : ' ';
+            line.append(c >= 0x20 && c < 0x7f ? c : '?'); // Printable ASCII only, one byte per character
+        }
+    }
+
+    /**
+     * Encodes lines into a reused buffer and writes it to a temporary file next to the target
+     */
+    private static class ChannelWriter implements Closeable {
+        final StringBuilder line = new StringBuilder(256);
+        private final Charset charset;
+        private final Path target, temp;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        private boolean committed;
+
+        ChannelWriter(Path target, Charset charset) throws IOException {
+            this.target = target;
+            this.charset = charset;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void endLine(String separator) throws IOException {
+            line.append(separator);
+            byte[] bytes = line.toString().getBytes(charset);
+            line.setLength(0);
+            if (bytes.length > buffer.remaining()) {
+                drain();
+            }
+            if (bytes.length > buffer.capacity()) {
+                channel.write(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        void endRecord() throws IOException {
+            while (line.length() < PANJANG_RECORD) {
+                line.append(' ');
+            }
+            endLine("\r\n");
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Writes the rest of the buffer and moves the temporary file over the target
+         */
+        void commit() throws IOException {
+            drain();
+            channel.force(false);
+            channel.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package id.ac.stis.pbo.demo1;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Payroll Run
+ * Immutable monthly salaries of all employees. The Hadir counts of the month are read in one
+ * pass (StorageBackend.getKehadiranSemuaPegawai), then the salaries are taken from the
+ * PayrollCache or computed in parallel on the common fork-join pool. DataStore.getPayrollRun
+ * shares one run between all screens until the data changes.
+ */
+final class PayrollRun {
+    final int bulan, tahun;
+    final long versiData; // StorageBackend.getVersiData at the time of the run
+
+    private final Pegawai[] pegawai; // by ordinal, null for unused ordinals
+    private final long[] hadir;
+    private final double[] gaji;
+    private final double total;
+    private final Map<String, Double> totalPerDivisi;
+    private final int jumlahPegawai;
+
+    private PayrollRun(int bulan, int tahun, long versiData, Pegawai[] pegawai, long[] hadir, double[] gaji) {
+        this.bulan = bulan;
+        this.tahun = tahun;
+        this.versiData = versiData;
+        this.pegawai = pegawai;
+        this.hadir = hadir;
+        this.gaji = gaji;
+
+        double sum = 0;
+        int count = 0;
+        Map<String, Double> perDivisi = new TreeMap<>();
+        for (int i = 0; i < pegawai.length; i++) {
+            if (pegawai[i] != null) {
+                sum += gaji[i];
+                count++;
+                perDivisi.merge(pegawai[i].divisi, gaji[i], Double::sum);
+            }
+        }
+        this.total = sum;
+        this.jumlahPegawai = count;
+        this.totalPerDivisi = Collections.unmodifiableMap(perDivisi);
+    }
+
+    /**
+     * Computes the salaries of all employees of a storage for a month
+     */
+    static PayrollRun hitung(StorageBackend storage, PayrollCache cache, int bulan, int tahun) {
+        long generasi = cache.generasi();
+        long versiData = storage.getVersiData();
+        Collection<Pegawai> semua = storage.getAllPegawai();
+        long[] hadirPerOrdinal = storage.getKehadiranSemuaPegawai(bulan, tahun);
+
+        int panjang = hadirPerOrdinal.length;
+        for (Pegawai p : semua) {
+            panjang = Math.max(panjang, p.ordinal + 1);
+        }
+        Pegawai[] pegawai = new Pegawai[panjang];
+        for (Pegawai p : semua) {
+            pegawai[p.ordinal] = p;
+        }
+        long[] hadir = Arrays.copyOf(hadirPerOrdinal, panjang);
+
+        LocalDate per = tanggalAcuan(bulan, tahun);
+        int bulanKey = DataStore.bulanKey((int) LocalDate.of(tahun, bulan, 1).toEpochDay());
+
+        double[] gaji = new double[panjang];
+        IntStream.range(0, panjang).parallel().forEach(i -> {
+            Pegawai p = pegawai[i];
+            if (p != null) {
+                gaji[i] = cache.get(p, bulanKey, generasi, () -> hitungGaji(p, hadir[i], per));
+            }
+        });
+        return new PayrollRun(bulan, tahun, versiData, pegawai, hadir, gaji);
+    }
+
+    /**
+     * Gets the date tenure is counted to: the end of the month, or today for the current month
+     */
+    static LocalDate tanggalAcuan(int bulan, int tahun) {
+        LocalDate akhirBulan = LocalDate.of(tahun, bulan, 1).plusMonths(1).minusDays(1);
+        return akhirBulan.isAfter(ClockService.today()) ? ClockService.today() : akhirBulan;
+    }
+
+    /**
+     * Computes the monthly salary of one employee
+     */
+    static double hitungGaji(Pegawai p, long hadir, LocalDate per) {
+        LocalDate masuk = LocalDate.ofInstant(Instant.ofEpochMilli(p.tglMasuk.getTime()), ZoneId.systemDefault());
+        return Pegawai.hitungGajiBulanan(p.gajiPokok, masaKerja(masuk, per), hadir);
+    }
+
+    /**
+     * Full years between two dates (same result as ChronoUnit.YEARS.between, without the Period arithmetic)
+     */
+    static long masaKerja(LocalDate masuk, LocalDate per) {
+        int tahun = per.getYear() - masuk.getYear();
+        if (per.getMonthValue() < masuk.getMonthValue()
+                || (per.getMonthValue() == masuk.getMonthValue() && per.getDayOfMonth() < masuk.getDayOfMonth())) {
+            tahun--;
+        }
+        return tahun;
+    }
+
+    /**
+     * Whether the employee is part of the run
+     */
+    boolean termasuk(Pegawai p) {
+        return p.ordinal >= 0 && p.ordinal < pegawai.length && pegawai[p.ordinal] == p;
+    }
+
+    /**
+     * Gets the monthly salary of an employee; 0 for an employee that is not part of the run
+     */
+    double getGaji(Pegawai p) {
+        return termasuk(p) ? gaji[p.ordinal] : 0;
+    }
+
+    long getHadir(Pegawai p) {
+        return termasuk(p) ? hadir[p.ordinal] : 0;
+    }
+
+    double getTotal() {
+        return total;
+    }
+
+    int getJumlahPegawai() {
+        return jumlahPegawai;
+    }
+
+    /**
+     * Gets the employees of the run in ordinal order
+     */
+    List<Pegawai> getPegawai() {
+        List<Pegawai> result = new ArrayList<>(jumlahPegawai);
+        for (Pegawai p : pegawai) {
+            if (p != null) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the salary totals per division, ordered by division name
+     */
+    Map<String, Double> getTotalPerDivisi() {
+        return totalPerDivisi;
+    }
+}
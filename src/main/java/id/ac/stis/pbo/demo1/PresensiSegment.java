@@ -0,0 +1,162 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Sealed Attendance Month Segment
+ * Immutable columnar file holding the attendance rows of one closed month, memory-mapped
+ * read-only so past months are scanned straight from the page cache without heap copies.
+ *
+ * Rows are sorted by employee ordinal and then by day, so the rows of one employee are contiguous.
+ *
+ * File layout:
+ * [long magic][int version][int month key][int rows]
+ * [int[] pegawai ordinal][int[] epoch day][byte[] status]
+ * [int count][approvedBy entries: int row, int length, UTF-8 bytes]
+ */
+class PresensiSegment {
+    private static final long MAGIC = 0x47415745505253L; // "GAWEPRS"
+    private static final int VERSION = 1;
+    private static final int HEADER = 8 + 4 + 4 + 4;
+
+    final Path file;
+    final int bulanKey;
+    final int generation;
+    private final MappedByteBuffer map;
+    private final int rows;
+    private final int hariOffset, statusOffset;
+
+    // approvedBy is sparse, so it is kept on the heap
+    private final Map<Integer, String> approvedBy = new HashMap<>();
+
+    private PresensiSegment(Path file, int bulanKey, int generation, MappedByteBuffer map) throws IOException {
+        this.file = file;
+        this.bulanKey = bulanKey;
+        this.generation = generation;
+        this.map = map;
+        if (map.getLong(0) != MAGIC || map.getInt(8) != VERSION || map.getInt(12) != bulanKey) {
+            throw new IOException("Segment presensi tidak valid: " + file);
+        }
+        this.rows = map.getInt(16);
+        this.hariOffset = HEADER + rows * 4;
+        this.statusOffset = hariOffset + rows * 4;
+
+        int pos = statusOffset + rows;
+        int count = map.getInt(pos);
+        pos += 4;
+        for (int i = 0; i < count; i++) {
+            int row = map.getInt(pos);
+            int length = map.getInt(pos + 4);
+            byte[] name = new byte[length];
+            map.get(pos + 8, name);
+            approvedBy.put(row, new String(name, StandardCharsets.UTF_8));
+            pos += 8 + length;
+        }
+    }
+
+    /**
+     * Gets the file name of a month segment, e.g. presensi-2025-01.3.seg for generation 3 of January 2025
+     */
+    static String fileName(int bulanKey, int generation) {
+        return String.format("presensi-%04d-%02d.%d.seg", bulanKey / 12, bulanKey % 12 + 1, generation);
+    }
+
+    /**
+     * Maps an existing segment file
+     */
+    static PresensiSegment open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int bulanKey = DataStore.bulanKey(Integer.parseInt(name.substring(14, 16)), Integer.parseInt(name.substring(9, 13)));
+        int generation = Integer.parseInt(name.substring(17, name.length() - ".seg".length()));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new PresensiSegment(file, bulanKey, generation, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the rows of a month (sorted by employee and day) to a new segment file and maps it
+     */
+    static PresensiSegment write(Path dir, int bulanKey, int generation,
+                                 int[] pegawai, int[] hari, byte[] status, Map<Integer, String> approvedBy) throws IOException {
+        int rows = pegawai.length;
+        Integer[] order = new Integer[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> pegawai[a] != pegawai[b]
+                ? Integer.compare(pegawai[a], pegawai[b])
+                : Integer.compare(hari[a], hari[b]));
+
+        Path file = dir.resolve(fileName(bulanKey, generation));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(bulanKey);
+            out.writeInt(rows);
+            for (int i = 0; i < rows; i++) {
+                out.writeInt(pegawai[order[i]]);
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeInt(hari[order[i]]);
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeByte(status[order[i]]);
+            }
+            List<Integer> approvedRows = new ArrayList<>();
+            for (int i = 0; i < rows; i++) {
+                if (approvedBy.containsKey(order[i])) {
+                    approvedRows.add(i);
+                }
+            }
+            out.writeInt(approvedRows.size());
+            for (int row : approvedRows) {
+                byte[] name = approvedBy.get(order[row]).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(row);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    int size() {
+        return rows;
+    }
+
+    int pegawaiOrdinal(int row) {
+        return map.getInt(HEADER + row * 4);
+    }
+
+    int epochDay(int row) {
+        return map.getInt(hariOffset + row * 4);
+    }
+
+    byte status(int row) {
+        return map.get(statusOffset + row);
+    }
+
+    String approvedBy(int row) {
+        return approvedBy.get(row);
+    }
+
+    /**
+     * Builds the Presensi object of a row
+     */
+    Presensi get(int row) {
+        Presensi presensi = new Presensi(DataStore.getPegawai(pegawaiOrdinal(row)).id,
+                PresensiStore.toDate(epochDay(row)), PresensiStore.KETERANGAN[status(row)]);
+        presensi.approvedBy = approvedBy(row);
+        return presensi;
+    }
+}
@@ -0,0 +1,88 @@
+package id.ac.stis.pbo.demo1;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Attendance Row Store
+ * Keeps the attendance rows of the current month as employee ordinal, epoch day and status code.
+ * Presensi objects are only built when a row is read through the DataStore API.
+ *
+ * Implementations:
+ * - HeapPresensiStore (primitive arrays on the Java heap, default)
+ * - OffHeapPresensiStore (fixed-width structs in a MemorySegment arena), enabled with -Dgawe.presensi.offheap=true
+ */
+interface PresensiStore {
+    // Status codes, the index in this array is the stored byte
+    String[] KETERANGAN = {"Hadir", "Izin", "Sakit", "Lembur"};
+    byte HADIR = 0, IZIN = 1, SAKIT = 2, LEMBUR = 3;
+
+    /**
+     * Creates the store selected by the gawe.presensi.offheap system property
+     */
+    static PresensiStore create() {
+        return Boolean.getBoolean("gawe.presensi.offheap") ? new OffHeapPresensiStore() : new HeapPresensiStore();
+    }
+
+    /**
+     * Appends a record and returns its row number
+     */
+    int add(Presensi presensi);
+
+    int size();
+
+    int pegawaiOrdinal(int row);
+
+    int epochDay(int row);
+
+    byte status(int row);
+
+    String approvedBy(int row);
+
+    /**
+     * Builds the Presensi object of a row
+     */
+    default Presensi get(int row) {
+        Presensi presensi = new Presensi(DataStore.getPegawai(pegawaiOrdinal(row)).id, toDate(epochDay(row)), KETERANGAN[status(row)]);
+        presensi.approvedBy = approvedBy(row);
+        return presensi;
+    }
+
+    // Column copies and restore, used by Snapshot
+
+    int[] pegawaiColumn();
+
+    int[] hariColumn();
+
+    byte[] statusColumn();
+
+    Map<Integer, String> approvedByRows();
+
+    /**
+     * Replaces the content of the store with the given columns
+     */
+    void restore(int[] pegawai, int[] hari, byte[] status, Map<Integer, String> approvedBy);
+
+    /**
+     * Gets the status code of an attendance description
+     */
+    static byte statusCode(String keterangan) {
+        for (byte i = 0; i < KETERANGAN.length; i++) {
+            if (KETERANGAN[i].equals(keterangan)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Keterangan presensi tidak dikenal: " + keterangan);
+    }
+
+    static int toEpochDay(Date date) {
+        // Via epoch millis: java.sql.Date (from the date pickers) does not support toInstant()
+        return (int) Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    static Date toDate(int epochDay) {
+        return Date.from(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
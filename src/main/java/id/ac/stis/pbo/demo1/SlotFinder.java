@@ -0,0 +1,164 @@
+package id.ac.stis.pbo.demo1;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Meeting Slot Finder
+ * Finds the earliest free meeting slots in a date range for a set of divisions and rooms.
+ *
+ * Availability is kept in bitsets with one bit per 15 minutes (96 bits per day) over the whole range:
+ * one "busy" bitset for the divisions (outside working hours, weekends and holidays, meetings of those divisions,
+ * days on which one of their employees is on approved leave) and one per room (its bookings).
+ * A slot is a run of clear bits in (divisions | room), found with nextSetBit/nextClearBit,
+ * so searching a month takes a few thousand word operations.
+ */
+class SlotFinder {
+    static final int MENIT_PER_SLOT = 15;
+    static final int SLOT_PER_HARI = 24 * 60 / MENIT_PER_SLOT;
+    private static final long MILLIS_PER_SLOT = MENIT_PER_SLOT * 60_000L;
+
+    /**
+     * A free slot in a room
+     */
+    static class Slot {
+        final String ruangan;
+        final Date mulai, selesai;
+
+        Slot(String ruangan, Date mulai, Date selesai) {
+            this.ruangan = ruangan;
+            this.mulai = mulai;
+            this.selesai = selesai;
+        }
+
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("EEE dd/MM/yyyy HH:mm").format(mulai) + " - "
+                    + new SimpleDateFormat("HH:mm").format(selesai) + " (" + ruangan + ")";
+        }
+    }
+
+    private final LocalDate dari;
+    private final int hari;
+    private final long awalMillis;
+    private final int jamMulaiKerja, jamSelesaiKerja;
+
+    /**
+     * Prepares a search over [dari, sampai] (inclusive) within working hours [jamMulaiKerja, jamSelesaiKerja)
+     */
+    SlotFinder(LocalDate dari, LocalDate sampai, int jamMulaiKerja, int jamSelesaiKerja) {
+        this.dari = dari;
+        this.hari = (int) (sampai.toEpochDay() - dari.toEpochDay()) + 1;
+        this.awalMillis = dari.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.jamMulaiKerja = jamMulaiKerja;
+        this.jamSelesaiKerja = jamSelesaiKerja;
+    }
+
+    /**
+     * Gets up to maxHasil free slots of the given duration, earliest first (ties ordered by room).
+     * Slots start on multiples of langkahMenit within the day.
+     */
+    List<Slot> cari(Collection<String> divisi, Collection<String> ruangan, int durasiMenit, int langkahMenit, int maxHasil) {
+        List<Slot> hasil = new ArrayList<>();
+        if (hari <= 0 || durasiMenit <= 0) {
+            return hasil;
+        }
+        long akhirMillis = awalMillis + (long) hari * SLOT_PER_HARI * MILLIS_PER_SLOT;
+        BitSet sibukDivisi = sibukDivisi(divisi, akhirMillis);
+
+        int panjang = (durasiMenit + MENIT_PER_SLOT - 1) / MENIT_PER_SLOT;
+        int langkah = Math.max(1, langkahMenit / MENIT_PER_SLOT);
+        for (String r : ruangan) {
+            BitSet sibuk = (BitSet) sibukDivisi.clone();
+            for (Rapat rapat : DataStore.getRapatRuangan(r, awalMillis, akhirMillis)) {
+                tandai(sibuk, rapat.tanggalMulai.getTime(), rapat.tanggalSelesai.getTime());
+            }
+            cariDiRuangan(sibuk, r, panjang, langkah, maxHasil, hasil);
+        }
+
+        hasil.sort(Comparator.comparing((Slot s) -> s.mulai).thenComparing(s -> s.ruangan));
+        return hasil.size() > maxHasil ? new ArrayList<>(hasil.subList(0, maxHasil)) : hasil;
+    }
+
+    /**
+     * Marks everything the divisions cannot attend
+     */
+    private BitSet sibukDivisi(Collection<String> divisi, long akhirMillis) {
+        int total = hari * SLOT_PER_HARI;
+        BitSet sibuk = new BitSet(total);
+        int awalKerja = jamMulaiKerja * 60 / MENIT_PER_SLOT;
+        int akhirKerja = jamSelesaiKerja * 60 / MENIT_PER_SLOT;
+        for (int h = 0; h < hari; h++) {
+            int basis = h * SLOT_PER_HARI;
+            if (!KalenderKerja.isHariKerja(dari.plusDays(h))) {
+                sibuk.set(basis, basis + SLOT_PER_HARI);
+            } else {
+                sibuk.set(basis, basis + awalKerja);
+                sibuk.set(basis + akhirKerja, basis + SLOT_PER_HARI);
+            }
+        }
+
+        // The past cannot be booked
+        tandai(sibuk, awalMillis, Math.min(System.currentTimeMillis(), akhirMillis));
+
+        for (String d : divisi) {
+            for (Rapat rapat : DataStore.getRapatDivisi(d, awalMillis, akhirMillis)) {
+                tandai(sibuk, rapat.tanggalMulai.getTime(), rapat.tanggalSelesai.getTime());
+            }
+        }
+
+        // People of the required divisions must not be on approved leave: any approved leave in one
+        // of them blocks the whole day
+        long awalEpochDay = dari.toEpochDay();
+        for (String d : divisi) {
+            for (Cuti cuti : DataStore.getCutiDivisi(d, "Disetujui")) {
+                long mulai = PresensiStore.toEpochDay(cuti.mulai) - awalEpochDay;
+                if (mulai >= hari) {
+                    break; // Ordered by start date
+                }
+                long selesai = PresensiStore.toEpochDay(cuti.selesai) - awalEpochDay + 1;
+                if (selesai > 0) {
+                    sibuk.set((int) Math.max(mulai, 0) * SLOT_PER_HARI, (int) Math.min(selesai, hari) * SLOT_PER_HARI);
+                }
+            }
+        }
+        return sibuk;
+    }
+
+    /**
+     * Marks the 15-minute slots touched by [mulai, selesai) as busy
+     */
+    private void tandai(BitSet sibuk, long mulai, long selesai) {
+        if (selesai <= awalMillis) {
+            return;
+        }
+        int total = hari * SLOT_PER_HARI;
+        long dariSlot = Math.floorDiv(mulai - awalMillis, MILLIS_PER_SLOT);
+        long sampaiSlot = Math.floorDiv(Math.max(selesai, mulai + 1) - awalMillis + MILLIS_PER_SLOT - 1, MILLIS_PER_SLOT);
+        if (sampaiSlot > 0 && dariSlot < total) {
+            sibuk.set((int) Math.max(dariSlot, 0), (int) Math.min(sampaiSlot, total));
+        }
+    }
+
+    private void cariDiRuangan(BitSet sibuk, String ruangan, int panjang, int langkah, int maxHasil, List<Slot> hasil) {
+        int total = hari * SLOT_PER_HARI;
+        int ditemukan = 0;
+        int awal = sibuk.nextClearBit(0);
+        while (awal < total && ditemukan < maxHasil) {
+            int berikutnya = sibuk.nextSetBit(awal);
+            int akhir = berikutnya < 0 ? total : Math.min(berikutnya, total);
+            // Align the first start to the step within the day
+            int dalamHari = awal % SLOT_PER_HARI;
+            int mulai = awal + (langkah - dalamHari % langkah) % langkah;
+            while (mulai + panjang <= akhir && ditemukan < maxHasil) {
+                hasil.add(new Slot(ruangan, new Date(awalMillis + mulai * MILLIS_PER_SLOT),
+                        new Date(awalMillis + (mulai + panjang) * MILLIS_PER_SLOT)));
+                ditemukan++;
+                mulai += (panjang + langkah - 1) / langkah * langkah;
+            }
+            awal = akhir < total ? sibuk.nextClearBit(akhir) : total;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Binary DataStore Snapshot
+ * Holds the pegawai, rapat and cuti collections, the names of the sealed attendance month
+ * segments and the attendance columns of PresensiStore, so startup only has to replay the
+ * journal segments written after the snapshot.
+ *
+ * File layout:
+ * [long magic][int version][long lastSegment]
+ * [int length][entity records: pegawai (ordinal order), rapat, cuti, month segment file names]
+ * [int rows][int[] pegawai ordinal][int[] epoch day][byte[] status][int length][approvedBy records]
+ */
+class Snapshot {
+    static final String FILE_NAME = "snapshot.bin";
+
+    private static final long MAGIC = 0x47415745534E4150L; // "GAWESNAP"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final long lastSegment;
+    private final byte[] entities;
+    private final int[] pegawaiColumn, hariColumn;
+    private final byte[] statusColumn;
+    private final byte[] approvedBy;
+
+    private Snapshot(long lastSegment, byte[] entities, int[] pegawaiColumn, int[] hariColumn,
+                     byte[] statusColumn, byte[] approvedBy) {
+        this.lastSegment = lastSegment;
+        this.entities = entities;
+        this.pegawaiColumn = pegawaiColumn;
+        this.hariColumn = hariColumn;
+        this.statusColumn = statusColumn;
+        this.approvedBy = approvedBy;
+    }
+
+    /**
+     * Copies the current state of the storage; must be called while its mutations are blocked.
+     * lastSegment is the last journal segment whose records are included.
+     */
+    static Snapshot capture(JournaledStorage storage, long lastSegment) throws IOException {
+        ByteArrayOutputStream entityBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(entityBytes);
+        out.writeInt(storage.pegawaiByOrdinal.size());
+        for (Pegawai p : storage.pegawaiByOrdinal) {
+            Journal.writePegawai(out, p);
+        }
+        out.writeInt(storage.rapatList.size());
+        for (Rapat r : storage.rapatList) {
+            Journal.writeRapat(out, r);
+        }
+        out.writeInt(storage.cutiList.size());
+        for (Cuti c : storage.cutiList) {
+            Journal.writeCuti(out, c);
+        }
+        out.writeInt(storage.presensiSegments.size());
+        for (PresensiSegment segment : storage.presensiSegments.values()) {
+            Journal.writeString(out, segment.file.getFileName().toString());
+        }
+        out.flush();
+
+        PresensiStore store = storage.presensiStore;
+        ByteArrayOutputStream approvedBytes = new ByteArrayOutputStream();
+        DataOutputStream approvedOut = new DataOutputStream(approvedBytes);
+        Map<Integer, String> approvedRows = store.approvedByRows();
+        approvedOut.writeInt(approvedRows.size());
+        for (Map.Entry<Integer, String> entry : approvedRows.entrySet()) {
+            approvedOut.writeInt(entry.getKey());
+            Journal.writeString(approvedOut, entry.getValue());
+        }
+        approvedOut.flush();
+
+        return new Snapshot(lastSegment, entityBytes.toByteArray(),
+                store.pegawaiColumn(), store.hariColumn(), store.statusColumn(),
+                approvedBytes.toByteArray());
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and atomically moves it into place
+     */
+    void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putLong(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(lastSegment);
+            out.putInt(entities.length);
+            out.putBytes(entities);
+            out.putInt(pegawaiColumn.length);
+            out.putInts(pegawaiColumn);
+            out.putInts(hariColumn);
+            out.putBytes(statusColumn);
+            out.putInt(approvedBy.length);
+            out.putBytes(approvedBy);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot into the (empty) storage and returns the last journal segment it covers,
+     * or -1 if there is no snapshot
+     */
+    static long load(Path file, JournaledStorage storage) throws IOException {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            long magic = in.getLong();
+            int version = in.getInt();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException("Format snapshot tidak dikenal: " + file);
+            }
+            long lastSegment = in.getLong();
+
+            DataInputStream entities = new DataInputStream(new ByteArrayInputStream(in.getBytes(new byte[in.getInt()])));
+            int jumlahPegawai = entities.readInt();
+            for (int i = 0; i < jumlahPegawai; i++) {
+                storage.addPegawai(Journal.readPegawai(entities));
+            }
+            int jumlahRapat = entities.readInt();
+            for (int i = 0; i < jumlahRapat; i++) {
+                storage.addRapat(Journal.readRapat(entities));
+            }
+            int jumlahCuti = entities.readInt();
+            for (int i = 0; i < jumlahCuti; i++) {
+                storage.addCuti(Journal.readCuti(entities));
+            }
+            int jumlahSegment = entities.readInt();
+            for (int i = 0; i < jumlahSegment; i++) {
+                PresensiSegment segment = PresensiSegment.open(file.resolveSibling(Journal.readString(entities)));
+                storage.presensiSegments.put(segment.bulanKey, segment);
+            }
+
+            int rows = in.getInt();
+            int[] pegawaiColumn = in.getInts(new int[rows]);
+            int[] hariColumn = in.getInts(new int[rows]);
+            byte[] statusColumn = in.getBytes(new byte[rows]);
+            DataInputStream approvedIn = new DataInputStream(new ByteArrayInputStream(in.getBytes(new byte[in.getInt()])));
+            int jumlahApproved = approvedIn.readInt();
+            Map<Integer, String> approvedRows = new HashMap<>();
+            for (int i = 0; i < jumlahApproved; i++) {
+                approvedRows.put(approvedIn.readInt(), Journal.readString(approvedIn));
+            }
+            storage.presensiStore.restore(pegawaiColumn, hariColumn, statusColumn, approvedRows);
+
+            storage.rebuildPresensiIndex();
+            return lastSegment;
+        }
+    }
+
+    /**
+     * Buffered bulk writer over a FileChannel
+     */
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putInts(int[] values) throws IOException {
+            int off = 0;
+            while (off < values.length) {
+                ensure(4);
+                int n = Math.min(buffer.remaining() / 4, values.length - off);
+                buffer.asIntBuffer().put(values, off, n);
+                buffer.position(buffer.position() + n * 4);
+                off += n;
+            }
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            int off = 0;
+            while (off < values.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), values.length - off);
+                buffer.put(values, off, n);
+                off += n;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Buffered bulk reader over a FileChannel
+     */
+    private static class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        int[] getInts(int[] values) throws IOException {
+            int off = 0;
+            while (off < values.length) {
+                ensure(4);
+                int n = Math.min(buffer.remaining() / 4, values.length - off);
+                buffer.asIntBuffer().get(values, off, n);
+                buffer.position(buffer.position() + n * 4);
+                off += n;
+            }
+            return values;
+        }
+
+        byte[] getBytes(byte[] values) throws IOException {
+            int off = 0;
+            while (off < values.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), values.length - off);
+                buffer.get(values, off, n);
+                off += n;
+            }
+            return values;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Snapshot terpotong");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Storage Backend
+ * Everything DataStore needs from a storage implementation: employee, attendance, meeting and
+ * leave lookups, the add/update operations and the aggregate queries used by the dashboards.
+ * Aggregates have default implementations on top of the basic queries; a backend overrides
+ * them when it can answer faster (e.g. with a single SQL query).
+ *
+ * Implementations:
+ * - InMemoryStorage (no persistence)
+ * - JournaledStorage (in memory, persisted with a journal, snapshots and sealed month segments)
+ * - JdbcStorage (embedded database)
+ */
+interface StorageBackend extends Closeable {
+
+    /**
+     * Loads persisted data; returns false if there is none yet (DataStore then adds sample data)
+     */
+    boolean load() throws IOException;
+
+    // Employees
+
+    Pegawai getPegawai(String id);
+
+    Pegawai getPegawai(int ordinal);
+
+    Collection<Pegawai> getAllPegawai();
+
+    default List<Pegawai> getPegawaiByDivision(String divisi) {
+        return getAllPegawai().stream()
+                .filter(p -> p.divisi.equals(divisi))
+                .collect(Collectors.toList());
+    }
+
+    // Attendance
+
+    /**
+     * Gets attendance counters of an employee ordinal for a specific month
+     */
+    RekapKehadiran getRekapKehadiran(int ordinal, int bulan, int tahun);
+
+    default long getKehadiranBulan(int ordinal, int bulan, int tahun) {
+        return getRekapKehadiran(ordinal, bulan, tahun).hadir;
+    }
+
+    List<Presensi> getPresensiBulan(Pegawai pegawai, int bulan, int tahun);
+
+    /**
+     * Gets all attendance records of an employee, newest first
+     */
+    List<Presensi> getPresensiPegawai(Pegawai pegawai);
+
+    boolean adaPresensi(int ordinal, int epochDay);
+
+    // Meetings and leave requests
+
+    List<Rapat> getAllRapat();
+
+    List<Cuti> getAllCuti();
+
+    /**
+     * Gets the leave requests of a division with a status, ordered by start date
+     */
+    default List<Cuti> getCutiDivisi(String divisi, String status) {
+        return getAllCuti().stream()
+                .filter(c -> status.equals(c.status))
+                .filter(c -> {
+                    Pegawai p = getPegawai(c.pegawaiOrdinal);
+                    return p != null && p.divisi.equals(divisi);
+                })
+                .sorted((a, b) -> a.mulai.compareTo(b.mulai))
+                .collect(Collectors.toList());
+    }
+
+    default long countCutiDivisi(String divisi, String status) {
+        return getCutiDivisi(divisi, status).size();
+    }
+
+    default List<Cuti> getPendingCutiByDivision(String divisi) {
+        return getCutiDivisi(divisi, "Pending");
+    }
+
+    /**
+     * Gets the meetings of a division (organizer or required) overlapping [from, to) in epoch millis,
+     * earliest first
+     */
+    default List<Rapat> getRapatDivisi(String divisi, long from, long to) {
+        return getAllRapat().stream()
+                .filter(r -> r.divisiDibutuhkan.contains(divisi) || r.divisi.equals(divisi))
+                .filter(r -> r.tanggalMulai.getTime() < to && Math.max(r.tanggalSelesai.getTime(), r.tanggalMulai.getTime() + 1) > from)
+                .sorted((a, b) -> a.tanggalMulai.compareTo(b.tanggalMulai))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the meetings booked in a room overlapping [from, to) in epoch millis, earliest first
+     */
+    default List<Rapat> getRapatRuangan(String ruangan, long from, long to) {
+        return getAllRapat().stream()
+                .filter(r -> ruangan.equals(r.ruangan))
+                .filter(r -> r.tanggalMulai.getTime() < to && Math.max(r.tanggalSelesai.getTime(), r.tanggalMulai.getTime() + 1) > from)
+                .sorted((a, b) -> a.tanggalMulai.compareTo(b.tanggalMulai))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets a meeting booked in a room that overlaps [from, to) in epoch millis, or null if the room is free
+     */
+    default Rapat getBentrokRuangan(String ruangan, long from, long to) {
+        return getAllRapat().stream()
+                .filter(r -> ruangan.equals(r.ruangan))
+                .filter(r -> r.tanggalMulai.getTime() < to && Math.max(r.tanggalSelesai.getTime(), r.tanggalMulai.getTime() + 1) > from)
+                .findFirst()
+                .orElse(null);
+    }
+
+    default List<Rapat> getTodayMeetingsForDivision(String divisi) {
+        return getRapatDivisi(divisi, ClockService.todayStartMillis(), ClockService.todayEndMillis());
+    }
+
+    // Mutations
+
+    void addPegawai(Pegawai pegawai);
+
+    /**
+     * Records changes made to an employee's data (profile, role, division, password, leave balance)
+     */
+    void updatePegawai(Pegawai pegawai);
+
+    void addPresensi(Presensi presensi);
+
+    void addRapat(Rapat rapat);
+
+    /**
+     * Adds a meeting only if its room is free; returns null on success, otherwise the conflicting
+     * meeting. Check and add happen atomically, so two managers cannot book the same slot.
+     * A meeting that does not end after it starts is rejected with an IllegalArgumentException.
+     */
+    default Rapat addRapatTanpaBentrok(Rapat rapat) {
+        if (!rapat.tanggalSelesai.after(rapat.tanggalMulai)) {
+            throw new IllegalArgumentException("Jam selesai rapat harus setelah jam mulai");
+        }
+        synchronized (this) {
+            Rapat bentrok = getBentrokRuangan(rapat.ruangan, rapat.tanggalMulai.getTime(), rapat.tanggalSelesai.getTime());
+            if (bentrok == null) {
+                addRapat(rapat);
+            }
+            return bentrok;
+        }
+    }
+
+    void addCuti(Cuti cuti);
+
+    /**
+     * Approves or rejects a leave request; approval deducts the employee's remaining leave
+     */
+    void updateStatusCuti(Cuti cuti, String status, String approvedBy);
+
+    /**
+     * Approves or rejects several pending leave requests at once. All requests are checked first
+     * (still pending, enough remaining leave per employee); if one fails an IllegalStateException
+     * is thrown and nothing is changed.
+     */
+    void updateStatusCuti(List<Cuti> daftar, String status, String approvedBy);
+
+    // Aggregates
+
+    /**
+     * Gets the attendance counters of a division's current employees for a month; null divisi means all divisions
+     */
+    default RekapKehadiran getRekapDivisi(String divisi, int bulan, int tahun) {
+        RekapKehadiran result = RekapKehadiran.hitungan(0, 0, 0, 0);
+        for (Pegawai p : divisi != null ? getPegawaiByDivision(divisi) : getAllPegawai()) {
+            result.tambahHitungan(getRekapKehadiran(p.ordinal, bulan, tahun), 1);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the attendance counters of every division in a month, ordered by division name
+     */
+    default Map<String, RekapKehadiran> getRekapPerDivisi(int bulan, int tahun) {
+        Map<String, RekapKehadiran> result = new TreeMap<>();
+        for (String divisi : countPegawaiByDivision().keySet()) {
+            result.put(divisi, getRekapDivisi(divisi, bulan, tahun));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the attendance counters of a division (null: all divisions) for every month in [dari, sampai]
+     */
+    default SortedMap<YearMonth, RekapKehadiran> getRekapPerBulan(String divisi, YearMonth dari, YearMonth sampai) {
+        SortedMap<YearMonth, RekapKehadiran> result = new TreeMap<>();
+        for (YearMonth bulan = dari; !bulan.isAfter(sampai); bulan = bulan.plusMonths(1)) {
+            result.put(bulan, getRekapDivisi(divisi, bulan.getMonthValue(), bulan.getYear()));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the attendance counters of every employee in a month, indexed by employee ordinal
+     */
+    default RekapKehadiran[] getRekapSemuaPegawai(int bulan, int tahun) {
+        RekapKehadiran[] rekap = new RekapKehadiran[getAllPegawai().size()];
+        for (Pegawai p : getAllPegawai()) {
+            rekap[p.ordinal] = getRekapKehadiran(p.ordinal, bulan, tahun);
+        }
+        return rekap;
+    }
+
+    /**
+     * Gets the Hadir count of every employee in a month, indexed by employee ordinal
+     */
+    default long[] getKehadiranSemuaPegawai(int bulan, int tahun) {
+        long[] hadir = new long[getAllPegawai().size()];
+        for (Pegawai p : getAllPegawai()) {
+            hadir[p.ordinal] = getKehadiranBulan(p.ordinal, bulan, tahun);
+        }
+        return hadir;
+    }
+
+    /**
+     * Gets leave requests with a status, ordered by start date
+     */
+    default List<Cuti> getCutiByStatus(String status) {
+        return getAllCuti().stream()
+                .filter(c -> status.equals(c.status))
+                .sorted((a, b) -> a.mulai.compareTo(b.mulai))
+                .collect(Collectors.toList());
+    }
+
+    default long countCutiByStatus(String status) {
+        return getCutiByStatus(status).size();
+    }
+
+    /**
+     * Gets the leave requests of an employee, newest first
+     */
+    default List<Cuti> getCutiPegawai(int ordinal) {
+        return getAllCuti().stream()
+                .filter(c -> c.pegawaiOrdinal == ordinal)
+                .sorted((a, b) -> b.mulai.compareTo(a.mulai))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the meetings organized by a division, earliest first
+     */
+    default List<Rapat> getRapatByDivision(String divisi) {
+        return getAllRapat().stream()
+                .filter(r -> r.divisi.equals(divisi))
+                .sorted((a, b) -> a.tanggalMulai.compareTo(b.tanggalMulai))
+                .collect(Collectors.toList());
+    }
+
+    default Map<String, Long> countPegawaiByDivision() {
+        return getAllPegawai().stream()
+                .collect(Collectors.groupingBy(p -> p.divisi, Collectors.counting()));
+    }
+
+    default Map<String, Long> countPegawaiByRole() {
+        return getAllPegawai().stream()
+                .collect(Collectors.groupingBy(p -> p.role, Collectors.counting()));
+    }
+
+    /**
+     * Gets a counter that changes with every mutation, so derived results can tell they are stale
+     */
+    long getVersiData();
+
+    @Override
+    void close();
+}
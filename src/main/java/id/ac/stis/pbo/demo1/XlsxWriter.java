@@ -0,0 +1,202 @@
+package id.ac.stis.pbo.demo1;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming XLSX Writer
+ * Writes a single-sheet Excel workbook row by row. The fixed workbook parts are written first,
+ * then the worksheet XML is streamed into its zip entry as rows arrive. Strings are stored inline
+ * (no shared string table), so memory use stays constant however many rows are written.
+ *
+ * Like PayrollExporter the workbook is written to a temporary file that replaces the target on commit();
+ * closing without commit() (e.g. after an exception) discards it and leaves the target untouched.
+ */
+class XlsxWriter implements Closeable {
+    private static final System.Logger LOG = System.getLogger(XlsxWriter.class.getName());
+
+    // Cell styles defined in styles.xml
+    private static final int STYLE_HEADER = 1;
+    private static final int STYLE_DESIMAL = 2;
+
+    private final Path target, temp;
+    private final ZipOutputStream zip;
+    private final Writer sheet;
+    private int rowNumber;
+    private boolean selesai;
+
+    /**
+     * Starts a workbook with one sheet; lebarKolom sets the column widths in characters
+     */
+    XlsxWriter(Path target, String namaSheet, double... lebarKolom) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024));
+        this.sheet = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+        try {
+            writePart("[Content_Types].xml",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                    + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                    + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+                    + "</Types>");
+            writePart("_rels/.rels",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            writePart("xl/workbook.xml",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                    + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                    + "<sheets><sheet name=\"" + escape(namaSheet.length() > 31 ? namaSheet.substring(0, 31) : namaSheet)
+                    + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+            writePart("xl/_rels/workbook.xml.rels",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                    + "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>"
+                    + "</Relationships>");
+            writePart("xl/styles.xml",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+                    + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                    + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                    + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                    + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                    + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                    + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+                    + "<xf numFmtId=\"2\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+                    + "</styleSheet>");
+
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            sheet.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+            if (lebarKolom.length > 0) {
+                sheet.write("<cols>");
+                for (int i = 0; i < lebarKolom.length; i++) {
+                    sheet.write("<col min=\"" + (i + 1) + "\" max=\"" + (i + 1) + "\" width=\"" + lebarKolom[i] + "\" customWidth=\"1\"/>");
+                }
+                sheet.write("</cols>");
+            }
+            sheet.write("<sheetData>");
+        } catch (IOException | RuntimeException e) {
+            batal();
+            throw e;
+        }
+    }
+
+    private void writePart(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(xml.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Writes a row of bold text cells
+     */
+    void header(String... cells) throws IOException {
+        rowNumber++;
+        sheet.write("<row r=\"" + rowNumber + "\">");
+        for (String cell : cells) {
+            sheet.write("<c t=\"inlineStr\" s=\"" + STYLE_HEADER + "\"><is><t>");
+            sheet.write(escape(cell));
+            sheet.write("</t></is></c>");
+        }
+        sheet.write("</row>");
+    }
+
+    /**
+     * Writes a row; integers and decimals become number cells (decimals with two places), anything else text
+     */
+    void row(Object... cells) throws IOException {
+        rowNumber++;
+        sheet.write("<row r=\"" + rowNumber + "\">");
+        for (Object cell : cells) {
+            if (cell == null) {
+                sheet.write("<c/>");
+            } else if (cell instanceof Double || cell instanceof Float) {
+                sheet.write("<c s=\"" + STYLE_DESIMAL + "\"><v>" + cell + "</v></c>");
+            } else if (cell instanceof Number) {
+                sheet.write("<c><v>" + cell + "</v></c>");
+            } else {
+                sheet.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                sheet.write(escape(cell.toString()));
+                sheet.write("</t></is></c>");
+            }
+        }
+        sheet.write("</row>");
+    }
+
+    int getRowCount() {
+        return rowNumber;
+    }
+
+    /**
+     * Escapes XML markup and drops characters XML does not allow
+     */
+    private static String escape(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '&' ? "&amp;" : c == '"' ? "&quot;"
+                    : (c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0xFFFE || c == 0xFFFF ? "" : null;
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : value;
+    }
+
+    /**
+     * Finishes the worksheet and moves the workbook over the target file
+     */
+    void commit() throws IOException {
+        sheet.write("</sheetData></worksheet>");
+        sheet.flush();
+        zip.closeEntry();
+        zip.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        selesai = true;
+    }
+
+    /**
+     * Discards the workbook unless commit() ran
+     */
+    @Override
+    public void close() {
+        if (!selesai) {
+            batal();
+        }
+    }
+
+    private void batal() {
+        selesai = true;
+        try {
+            zip.close();
+        } catch (IOException e) {
+            // Already failing; the temporary file is removed below
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.WARNING, "File sementara tidak dapat dihapus: " + temp, e);
+        }
+    }
+}
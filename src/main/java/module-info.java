@@ -4,6 +4,7 @@ module id.ac.stis.pbo.demo1 {
     requires javafx.web;
 
     requires java.sql;
+    requires com.h2database;
 
     requires org.controlsfx.controls;
     requires com.dlsc.formsfx;
@@ -0,0 +1,171 @@
+package id.ac.stis.pbo.demo1;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Leave Concurrency Test
+ * Races several approvers (manager and HR dashboards) on the same leave requests and employee
+ * balance of an InMemoryStorage and checks that every request is won by exactly one approver and
+ * the balance drops by exactly the approved days.
+ */
+class CutiConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int SISA_AWAL = 12;
+
+    private ExecutorService executor;
+    private InMemoryStorage storage;
+    private Pegawai pegawai;
+
+    @BeforeEach
+    void siapkan() {
+        storage = new InMemoryStorage();
+        pegawai = new Pegawai("uji.cuti@gawe.com", "Uji Cuti", "x", "pegawai", "IT", "Staff", new Date());
+        storage.addPegawai(pegawai);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tutup() {
+        executor.shutdownNow();
+    }
+
+    @RepeatedTest(50)
+    void sameRequestIsApprovedAndDeductedOnce() throws Exception {
+        Cuti cuti = cuti(LocalDate.of(2031, 3, 3), 5);
+
+        boolean[] berhasil = balapan(THREADS, i -> storage.updateStatusCuti(cuti, "Disetujui", "approver" + i));
+
+        assertEquals(1, jumlah(berhasil));
+        assertEquals("Disetujui", cuti.status);
+        assertEquals(SISA_AWAL - cuti.getJumlahHari(), pegawai.sisaCuti);
+        assertTrue(storage.getCutiByStatus("Pending").stream().noneMatch(c -> c == cuti));
+    }
+
+    @RepeatedTest(50)
+    void approvalRacingRejectionDeductsOnlyIfApproved() throws Exception {
+        Cuti cuti = cuti(LocalDate.of(2031, 3, 3), 5);
+
+        boolean[] berhasil = balapan(THREADS, i -> storage.updateStatusCuti(cuti, i % 2 == 0 ? "Disetujui" : "Ditolak", "approver" + i));
+
+        assertEquals(1, jumlah(berhasil));
+        assertEquals("Disetujui".equals(cuti.status) ? SISA_AWAL - cuti.getJumlahHari() : SISA_AWAL, pegawai.sisaCuti);
+    }
+
+    @Test
+    void balanceDropsByExactlyTheApprovedDays() throws Exception {
+        List<Cuti> daftar = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            daftar.add(cuti(LocalDate.of(2031, 1, 6).plusWeeks(i), 3));
+        }
+
+        // Manager and HR approve every request at the same time
+        boolean[] berhasil = balapan(daftar.size() * 2, i -> storage.updateStatusCuti(daftar.get(i / 2), "Disetujui", "approver" + i));
+
+        long disetujui = 0;
+        for (int i = 0; i < daftar.size(); i++) {
+            Cuti cuti = daftar.get(i);
+            int pemenang = (berhasil[2 * i] ? 1 : 0) + (berhasil[2 * i + 1] ? 1 : 0);
+            if (cuti.status.equals("Disetujui")) {
+                assertEquals(1, pemenang, "Pengajuan #" + cuti.id);
+                disetujui += cuti.getJumlahHari();
+            } else {
+                // Turned away by both because it no longer fit
+                assertEquals("Pending", cuti.status);
+                assertEquals(0, pemenang, "Pengajuan #" + cuti.id);
+            }
+        }
+        assertEquals(SISA_AWAL / 3, daftar.stream().filter(c -> c.status.equals("Disetujui")).count());
+        assertEquals(SISA_AWAL - disetujui, pegawai.sisaCuti);
+    }
+
+    @Test
+    void batchIsAllOrNothingAgainstSingleApprovals() throws Exception {
+        Cuti tunggal = cuti(LocalDate.of(2031, 3, 3), 5);
+        List<Cuti> batch = List.of(cuti(LocalDate.of(2031, 4, 7), 5), cuti(LocalDate.of(2031, 5, 5), 2));
+
+        boolean[] berhasil = balapan(2, i -> {
+            if (i == 0) {
+                storage.updateStatusCuti(tunggal, "Disetujui", "manajer");
+            } else {
+                storage.updateStatusCuti(batch, "Disetujui", "hr");
+            }
+        });
+
+        assertEquals(berhasil[0], tunggal.status.equals("Disetujui"));
+        assertEquals(berhasil[1], batch.get(0).status.equals("Disetujui"));
+        assertEquals(batch.get(0).status, batch.get(1).status);
+        long dipotong = (berhasil[0] ? tunggal.getJumlahHari() : 0)
+                + (berhasil[1] ? batch.stream().mapToLong(Cuti::getJumlahHari).sum() : 0);
+        assertTrue(jumlah(berhasil) >= 1);
+        assertEquals(SISA_AWAL - dipotong, pegawai.sisaCuti);
+    }
+
+    /**
+     * Adds a pending request of the test employee from mulai over the given number of calendar days
+     */
+    private Cuti cuti(LocalDate mulai, int hari) {
+        ZoneId zone = ZoneId.systemDefault();
+        Cuti cuti = new Cuti(pegawai.id, Date.from(mulai.atStartOfDay(zone).toInstant()),
+                Date.from(mulai.plusDays(hari - 1).atStartOfDay(zone).toInstant()), "Uji", "Uji konkurensi");
+        cuti.pegawaiOrdinal = pegawai.ordinal; // Of the local storage, not of DataStore
+        storage.addCuti(cuti);
+        return cuti;
+    }
+
+    /**
+     * Starts the actions at the same moment and returns, per action, whether it completed without an
+     * IllegalStateException (already processed, or not enough leave left)
+     */
+    private boolean[] balapan(int jumlah, Aksi aksi) throws Exception {
+        CountDownLatch mulai = new CountDownLatch(1);
+        List<Future<Boolean>> hasil = new ArrayList<>();
+        for (int i = 0; i < jumlah; i++) {
+            int nomor = i;
+            hasil.add(executor.submit(() -> {
+                mulai.await();
+                try {
+                    aksi.jalankan(nomor);
+                    return true;
+                } catch (IllegalStateException e) {
+                    return false;
+                }
+            }));
+        }
+        mulai.countDown();
+        boolean[] berhasil = new boolean[jumlah];
+        for (int i = 0; i < jumlah; i++) {
+            berhasil[i] = hasil.get(i).get();
+        }
+        return berhasil;
+    }
+
+    private static int jumlah(boolean[] berhasil) {
+        int total = 0;
+        for (boolean b : berhasil) {
+            if (b) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private interface Aksi {
+        void jalankan(int nomor);
+    }
+}
@@ -0,0 +1,71 @@
+package id.ac.stis.pbo.demo1;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Slot Finder Test
+ * Approved leave of a required division blocks its days, including leave entered through the
+ * form, whose dates are java.sql.Date.
+ */
+class SlotFinderTest {
+    // Monday to Wednesday, far enough ahead to never be in the past
+    private static final LocalDate SENIN = LocalDate.of(2031, 3, 3);
+
+    private Pegawai pegawai;
+
+    @BeforeEach
+    void siapkan() {
+        DataStore.init(new InMemoryStorage());
+        pegawai = new Pegawai("uji.slot@gawe.com", "Uji Slot", "x", "pegawai", "Riset", "Staff", new Date());
+        DataStore.addPegawai(pegawai);
+        DataStore.addPegawai(new Pegawai("uji.slot2@gawe.com", "Uji Slot 2", "x", "pegawai", "Riset", "Staff", new Date()));
+    }
+
+    @AfterEach
+    void tutup() {
+        DataStore.close();
+    }
+
+    @Test
+    void approvedLeaveFromTheFormBlocksItsDay() {
+        LocalDate selasa = SENIN.plusDays(1);
+        Cuti cuti = new Cuti(pegawai.id, java.sql.Date.valueOf(selasa), java.sql.Date.valueOf(selasa), "Uji", "Uji slot");
+        DataStore.addCuti(cuti);
+        DataStore.updateStatusCuti(cuti, "Disetujui", "manajer");
+
+        List<SlotFinder.Slot> slots = new SlotFinder(SENIN, SENIN.plusDays(2), 8, 18)
+                .cari(List.of("Riset"), List.of("Ruang Uji"), 60, 60, 100);
+
+        assertFalse(slots.isEmpty());
+        assertTrue(slots.stream().noneMatch(s -> tanggal(s).equals(selasa)), "Slot pada hari cuti: " + slots);
+        assertTrue(slots.stream().anyMatch(s -> !tanggal(s).equals(selasa)));
+    }
+
+    @Test
+    void leaveOfAnotherDivisionDoesNotBlock() {
+        LocalDate selasa = SENIN.plusDays(1);
+        Cuti cuti = new Cuti(pegawai.id, java.sql.Date.valueOf(selasa), java.sql.Date.valueOf(selasa), "Uji", "Uji slot");
+        DataStore.addCuti(cuti);
+        DataStore.updateStatusCuti(cuti, "Disetujui", "manajer");
+
+        List<SlotFinder.Slot> slots = new SlotFinder(selasa, selasa, 8, 18)
+                .cari(List.of("Keuangan"), List.of("Ruang Uji"), 60, 60, 100);
+
+        assertTrue(slots.stream().anyMatch(s -> tanggal(s).equals(selasa)));
+    }
+
+    private static LocalDate tanggal(SlotFinder.Slot slot) {
+        return Instant.ofEpochMilli(slot.mulai.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
@@ -0,0 +1,78 @@
+package id.ac.stis.pbo.demo1;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Startup Benchmark
+ * Fills a journaled data directory with millions of attendance rows over the last 13 months,
+ * snapshots it (closed months are sealed into segment files) and measures the restart.
+ *
+ * Opt-in, generating the data takes a while:
+ * mvn test -Dgawe.benchmark=true [-Dgawe.benchmark.rows=3000000] [-Dgawe.benchmark.budgetMillis=3000]
+ */
+@EnabledIfSystemProperty(named = "gawe.benchmark", matches = "true")
+class StartupBenchmarkTest {
+    private static final String[] DIVISI = {"HR", "IT", "Marketing", "Keuangan"};
+    private static final String[] STATUS = {"Hadir", "Hadir", "Hadir", "Izin", "Sakit", "Lembur"};
+
+    @TempDir
+    Path dataDir;
+
+    @AfterEach
+    void tutup() {
+        DataStore.close();
+    }
+
+    @Test
+    void restartWithMillionsOfRowsStaysWithinBudget() {
+        int rows = Integer.getInteger("gawe.benchmark.rows", 3_000_000);
+        long budgetMillis = Long.getLong("gawe.benchmark.budgetMillis", 3000L);
+        int jumlahPegawai = 10_000;
+
+        DataStore.init(new JournaledStorage(dataDir));
+        for (int i = 0; i < jumlahPegawai; i++) {
+            DataStore.addPegawai(new Pegawai("bench" + i + "@gawe.com", "Pegawai " + i, "x", "pegawai",
+                    DIVISI[i % DIVISI.length], "Staff", new Date()));
+        }
+        LocalDate awal = ClockService.today().minusMonths(12).withDayOfMonth(1);
+        int jumlahHari = (int) (ClockService.today().toEpochDay() - awal.toEpochDay()) + 1;
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            LocalDate tanggal = awal.plusDays(random.nextInt(jumlahHari));
+            DataStore.addPresensi(new Presensi("bench" + random.nextInt(jumlahPegawai) + "@gawe.com",
+                    Date.from(tanggal.atStartOfDay(ZoneId.systemDefault()).toInstant()), STATUS[random.nextInt(STATUS.length)]));
+        }
+        long totalSebelum = jumlahBaris(awal);
+        DataStore.close(); // Final snapshot, seals the closed months
+
+        DataStore.init(new JournaledStorage(dataDir));
+        long startupMillis = DataStore.startupMillis;
+
+        assertEquals(totalSebelum, jumlahBaris(awal));
+        assertTrue(startupMillis <= budgetMillis,
+                String.format("Startup dengan %,d baris presensi %d ms melebihi batas %d ms", totalSebelum, startupMillis, budgetMillis));
+    }
+
+    /**
+     * Counts all attendance rows (every status) since awal, sample data included
+     */
+    private static long jumlahBaris(LocalDate awal) {
+        return DataStore.getStorage().getRekapPerBulan(null, YearMonth.from(awal).minusYears(1), YearMonth.from(ClockService.today()))
+                .values().stream()
+                .mapToLong(r -> r.hadir + r.izin + r.sakit + r.lembur)
+                .sum();
+    }
+}